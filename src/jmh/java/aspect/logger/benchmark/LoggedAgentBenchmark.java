@@ -0,0 +1,151 @@
+package aspect.logger.benchmark;
+
+import aspect.logger.CustomizableLoggedInterceptor;
+import aspect.logger.Logged;
+import aspect.logger.LoggedPointcut;
+import aspect.logger.agent.AgentLoggedInterceptor;
+import aspect.logger.agent.LoggedAgentRuntime;
+import aspect.logger.agent.LoggedClassTransformer;
+import aspect.logger.properties.LoggedInterceptorProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a call logged through a Spring AOP proxy with the same call instrumented by the Java agent.
+ * The instrumented classes are loaded through {@link LoggedClassTransformer} by a class loader of their own,
+ * as the agent would load them, so the benchmark does not need {@code -javaagent}.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=LoggedAgentBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmark.xml")
+@State(Scope.Benchmark)
+public class LoggedAgentBenchmark {
+
+    static final int ID = 42;
+    static final String NAME = "benchmark argument";
+
+    private Service plain;
+    private Service proxyDisabled;
+    private Service agentDisabled;
+    private Service proxyExit;
+    private Service agentExit;
+
+    @Setup
+    public void setup() throws Exception {
+        LoggedInterceptorProperties properties = new LoggedInterceptorProperties();
+        CustomizableLoggedInterceptor interceptor = new CustomizableLoggedInterceptor(properties);
+        LoggedAgentRuntime.setInterceptor(new AgentLoggedInterceptor(properties));
+
+        plain = new DisabledService();
+        proxyDisabled = proxy(new DisabledService(), interceptor);
+        agentDisabled = instrument(DisabledService.class);
+        proxyExit = proxy(new ExitService(), interceptor);
+        agentExit = instrument(ExitService.class);
+    }
+
+    @Benchmark
+    public String baseline() {
+        return plain.process(ID, NAME);
+    }
+
+    @Benchmark
+    public String proxyDisabled() {
+        return proxyDisabled.process(ID, NAME);
+    }
+
+    @Benchmark
+    public String agentDisabled() {
+        return agentDisabled.process(ID, NAME);
+    }
+
+    @Benchmark
+    public String proxyExit() {
+        return proxyExit.process(ID, NAME);
+    }
+
+    @Benchmark
+    public String agentExit() {
+        return agentExit.process(ID, NAME);
+    }
+
+    private static Service proxy(Service target, CustomizableLoggedInterceptor interceptor) {
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(new DefaultPointcutAdvisor(new LoggedPointcut(), interceptor));
+        return (Service) proxyFactory.getProxy();
+    }
+
+    private static Service instrument(Class<? extends Service> type) throws ReflectiveOperationException {
+        return (Service) new InstrumentingClassLoader(type.getName()).loadClass(type.getName()).newInstance();
+    }
+
+    public interface Service {
+        String process(int id, String name);
+    }
+
+    @Logged
+    public static class DisabledService implements Service {
+        @Override
+        public String process(int id, String name) {
+            return name;
+        }
+    }
+
+    @Logged
+    public static class ExitService implements Service {
+        @Override
+        public String process(int id, String name) {
+            return name;
+        }
+    }
+
+    private static class InstrumentingClassLoader extends ClassLoader {
+
+        private final String instrumentedClassName;
+
+        InstrumentingClassLoader(String instrumentedClassName) {
+            super(LoggedAgentBenchmark.class.getClassLoader());
+            this.instrumentedClassName = instrumentedClassName;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(instrumentedClassName)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    String path = name.replace('.', '/');
+                    try (InputStream stream = getParent().getResourceAsStream(path + ".class")) {
+                        byte[] bytes = new LoggedClassTransformer().transform(this, path, null, null,
+                                StreamUtils.copyToByteArray(stream));
+                        loaded = defineClass(name, bytes, 0, bytes.length);
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                }
+                return loaded;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package aspect.logger.benchmark;
+
+import aspect.logger.CustomizableLoggedInterceptor;
+import aspect.logger.properties.LoggedInterceptorProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how logged calls scale with the number of threads making them at once, through one shared interceptor.
+ * Calls alternate between a service logging enter and exit messages and a quiet one, and every
+ * {@value #FAIL_EVERY}th call fails, so throughput and sampled latency percentiles cover all three paths.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=LoggedConcurrencyBenchmark
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmark.xml")
+@State(Scope.Benchmark)
+public class LoggedConcurrencyBenchmark {
+
+    static final int FAIL_EVERY = 5;
+
+    @Param({"true", "false"})
+    public boolean useDynamicLogger;
+
+    private VerboseService verbose;
+    private VerboseService quiet;
+
+    @State(Scope.Thread)
+    public static class Sequence {
+        private long next;
+    }
+
+    @Setup
+    public void setup() {
+        LoggedInterceptorProperties properties = new LoggedInterceptorProperties();
+        properties.setUseDynamicLogger(useDynamicLogger);
+        CustomizableLoggedInterceptor interceptor = new CustomizableLoggedInterceptor(properties);
+        if (!useDynamicLogger) {
+            interceptor.setLoggerName(LoggedConcurrencyBenchmark.class.getName());
+        }
+        verbose = proxy(new VerboseService(), interceptor);
+        quiet = proxy(new QuietService(), interceptor);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object oneThread(Sequence sequence) {
+        return call(sequence);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Object twoThreads(Sequence sequence) {
+        return call(sequence);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object fourThreads(Sequence sequence) {
+        return call(sequence);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object eightThreads(Sequence sequence) {
+        return call(sequence);
+    }
+
+    private Object call(Sequence sequence) {
+        long next = sequence.next++;
+        VerboseService service = next % 2 == 0 ? verbose : quiet;
+        if (next % FAIL_EVERY == 0) {
+            try {
+                return service.fail(next);
+            } catch (RuntimeException e) {
+                return e;
+            }
+        }
+        return service.echo(next);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(T target, CustomizableLoggedInterceptor interceptor) {
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        return (T) proxyFactory.getProxy();
+    }
+
+    public static class VerboseService {
+        private static final RuntimeException EXCEPTION = new IllegalStateException("benchmark failure");
+
+        public String echo(long sequence) {
+            return "echo";
+        }
+
+        public String fail(long sequence) {
+            throw EXCEPTION;
+        }
+    }
+
+    public static class QuietService extends VerboseService {
+    }
+}
@@ -0,0 +1,135 @@
+package aspect.logger.benchmark;
+
+import aspect.logger.CustomizableLoggedInterceptor;
+import aspect.logger.LogLevel;
+import aspect.logger.properties.LoggedInterceptorProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of {@link CustomizableLoggedInterceptor} on a proxied call.
+ * Log output goes to a Null appender (see log4j2-benchmark.xml), so the numbers
+ * cover the interceptor and message rendering, not I/O.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=LoggedInterceptorBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmark.xml")
+@State(Scope.Benchmark)
+public class LoggedInterceptorBenchmark {
+
+    static final int ID = 42;
+    static final String NAME = "benchmark argument";
+
+    @Param({"true", "false"})
+    public boolean useDynamicLogger;
+
+    private DisabledService plain;
+    private DisabledService disabled;
+    private EnterService enter;
+    private ExitService exit;
+    private ExceptionService exception;
+
+    @Setup
+    public void setup() {
+        plain = new DisabledService();
+        disabled = proxy(new DisabledService(), new LoggedInterceptorProperties());
+
+        LoggedInterceptorProperties enterOnly = new LoggedInterceptorProperties();
+        enterOnly.setExitMessageLogLevel(LogLevel.OFF);
+        enter = proxy(new EnterService(), enterOnly);
+
+        LoggedInterceptorProperties exitWithArguments = new LoggedInterceptorProperties();
+        exitWithArguments.setExitMessage("Finished " + CustomizableLoggedInterceptor.PLACEHOLDER_METHOD_NAME
+                + "(" + CustomizableLoggedInterceptor.PLACEHOLDER_ARGUMENTS + "), returned "
+                + CustomizableLoggedInterceptor.PLACEHOLDER_RETURN_VALUE
+                + " in " + CustomizableLoggedInterceptor.PLACEHOLDER_INVOCATION_TIME + "ms");
+        exit = proxy(new ExitService(), exitWithArguments);
+
+        exception = proxy(new ExceptionService(), new LoggedInterceptorProperties());
+    }
+
+    @Benchmark
+    public String baseline() {
+        return plain.process(ID, NAME);
+    }
+
+    @Benchmark
+    public String disabled() {
+        return disabled.process(ID, NAME);
+    }
+
+    @Benchmark
+    public String enter() {
+        return enter.process(ID, NAME);
+    }
+
+    @Benchmark
+    public String exit() {
+        return exit.process(ID, NAME);
+    }
+
+    @Benchmark
+    public Object exception() {
+        try {
+            return exception.process(ID, NAME);
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(T target, LoggedInterceptorProperties properties) {
+        properties.setUseDynamicLogger(useDynamicLogger);
+        CustomizableLoggedInterceptor interceptor = new CustomizableLoggedInterceptor(properties);
+        if (!useDynamicLogger) {
+            interceptor.setLoggerName(target.getClass().getName());
+        }
+
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        return (T) proxyFactory.getProxy();
+    }
+
+    public static class DisabledService {
+        public String process(int id, String name) {
+            return name;
+        }
+    }
+
+    public static class EnterService {
+        public String process(int id, String name) {
+            return name;
+        }
+    }
+
+    public static class ExitService {
+        public String process(int id, String name) {
+            return name;
+        }
+    }
+
+    public static class ExceptionService {
+        private static final RuntimeException EXCEPTION = new IllegalStateException("benchmark failure");
+
+        public String process(int id, String name) {
+            throw EXCEPTION;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package aspect.logger.benchmark;
+
+import aspect.logger.Logged;
+import aspect.logger.LoggedPointcut;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.ApplicationContext;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Measures what proxy creation at startup costs per pointcut: every bean class is checked with
+ * {@link AopUtils#canApply(Pointcut, Class)}, as the auto proxy creator does. The synthetic context is
+ * a few thousand distinct classes from the Spring jars plus some {@link Logged} ones, and every operation
+ * uses a new pointcut so caches start empty, like at startup.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=LoggedPointcutBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoggedPointcutBenchmark {
+
+    private static final String EXPRESSION = "(execution(public * *(..)) && !execution(* java.lang.Object.*(..))" +
+            "&& within(@aspect.logger.Logged *))" +
+            "|| @annotation(aspect.logger.Logged)";
+
+    @Param({"2000"})
+    public int beanClasses;
+
+    private List<Class<?>> classes;
+
+    @Setup
+    public void setup() throws IOException {
+        classes = new ArrayList<>();
+        classes.add(LoggedService.class);
+        classes.add(ServiceWithLoggedMethod.class);
+        String jar = ApplicationContext.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+        try (JarFile jarFile = new JarFile(jar)) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements() && classes.size() < beanClasses) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && !name.contains("$")) {
+                    addClass(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+        }
+    }
+
+    private void addClass(String name) {
+        try {
+            Class<?> type = Class.forName(name, false, getClass().getClassLoader());
+            if (!type.isInterface() && !type.isAnnotation() && Modifier.isPublic(type.getModifiers())) {
+                //fails if the class refers to a missing optional dependency
+                AopUtils.canApply(aspectJPointcut(), type);
+                classes.add(type);
+            }
+        } catch (ClassNotFoundException | LinkageError | IllegalStateException e) {
+            //optional dependency missing, skip
+        }
+    }
+
+    @Benchmark
+    public int aspectJExpressionPointcut() {
+        return countProxied(aspectJPointcut());
+    }
+
+    @Benchmark
+    public int loggedPointcut() {
+        return countProxied(new LoggedPointcut());
+    }
+
+    private static Pointcut aspectJPointcut() {
+        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+        pointcut.setExpression(EXPRESSION);
+        return pointcut;
+    }
+
+    private int countProxied(Pointcut pointcut) {
+        int proxied = 0;
+        for (Class<?> type : classes) {
+            if (AopUtils.canApply(pointcut, type)) {
+                proxied++;
+            }
+        }
+        return proxied;
+    }
+
+    @Logged
+    public static class LoggedService {
+        public String process(int id, String name) {
+            return name;
+        }
+    }
+
+    public static class ServiceWithLoggedMethod {
+        @Logged
+        public String process(int id, String name) {
+            return name;
+        }
+
+        public String other(String name) {
+            return name;
+        }
+    }
+}
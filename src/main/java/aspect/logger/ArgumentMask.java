@@ -0,0 +1,56 @@
+package aspect.logger;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.BitSet;
+
+/**
+ * Indexes of {@link NotLogged} and {@link Masked} parameters of a method, resolved once per method.
+ */
+public final class ArgumentMask {
+
+    private final BitSet notLogged;
+    private final String[] masks;
+
+    private ArgumentMask(BitSet notLogged, String[] masks) {
+        this.notLogged = notLogged;
+        this.masks = masks;
+    }
+
+    /**
+     * @param methods the invoked method and, if different, its most specific implementation
+     * @return null if none of the parameters is annotated
+     */
+    public static ArgumentMask forMethod(Method... methods) {
+        int parameterCount = methods[0].getParameterCount();
+        BitSet notLogged = new BitSet(parameterCount);
+        String[] masks = new String[parameterCount];
+        boolean annotated = false;
+        for (Method method : methods) {
+            Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+            for (int i = 0; i < parameterCount; i++) {
+                for (Annotation annotation : parameterAnnotations[i]) {
+                    if (annotation instanceof NotLogged) {
+                        notLogged.set(i);
+                        annotated = true;
+                    } else if (annotation instanceof Masked) {
+                        masks[i] = ((Masked) annotation).value();
+                        annotated = true;
+                    }
+                }
+            }
+        }
+        return annotated ? new ArgumentMask(notLogged, masks) : null;
+    }
+
+    public boolean isNotLogged(int index) {
+        return notLogged.get(index);
+    }
+
+    /**
+     * @return replacement for the argument, null if it is rendered as is
+     */
+    public String getMask(int index) {
+        return index < masks.length ? masks[index] : null;
+    }
+}
@@ -0,0 +1,15 @@
+package aspect.logger;
+
+/**
+ * Renders values of a type into log messages instead of their {@code toString()},
+ * e.g. a compact summary of an entity whose {@code toString()} walks lazy associations.
+ * Renderers registered as Spring beans are picked up by the auto-configured interceptor, in bean order;
+ * the first one whose type a value is an instance of renders it. The rendered value is cut afterwards
+ * if it goes past the configured limits.
+ */
+public interface ArgumentRenderer<T> {
+
+    Class<T> getType();
+
+    void render(T value, StringBuilder builder);
+}
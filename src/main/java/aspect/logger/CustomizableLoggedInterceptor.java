@@ -1,26 +1,52 @@
 package aspect.logger;
 
+import aspect.logger.aggregation.ExceptionAggregator;
+import aspect.logger.aggregation.MethodSummaryReporter;
+import aspect.logger.async.AsyncResultHandler;
+import aspect.logger.async.AsyncResultListener;
+import aspect.logger.async.CompletionStageResultHandler;
+import aspect.logger.async.ListenableFutureResultHandler;
+import aspect.logger.async.ReactorResultHandler;
+import aspect.logger.backend.LogBackend;
+import aspect.logger.backend.LogHandle;
+import aspect.logger.metrics.LatencyHistogram;
+import aspect.logger.metrics.MethodLatencyRegistry;
+import aspect.logger.pipeline.AsyncLogPipeline;
 import aspect.logger.properties.LoggedInterceptorProperties;
+import aspect.logger.sampling.Sampler;
+import aspect.logger.tail.TailLog;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.aop.interceptor.AbstractTraceInterceptor;
 import org.springframework.aop.interceptor.CustomizableTraceInterceptor;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.core.Constants;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.util.Assert;
-import org.springframework.util.StringUtils;
+import org.springframework.util.ClassUtils;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
-import static aspect.logger.LogHelper.isLogLevelEnabled;
-import static aspect.logger.LogHelper.log;
+import static aspect.logger.StructuredTemplates.EVENT_CANCEL;
+import static aspect.logger.StructuredTemplates.EVENT_ENTER;
+import static aspect.logger.StructuredTemplates.EVENT_EXCEPTION;
+import static aspect.logger.StructuredTemplates.EVENT_EXIT;
 
-public class CustomizableLoggedInterceptor extends AbstractTraceInterceptor {
+public class CustomizableLoggedInterceptor extends AbstractTraceInterceptor implements DisposableBean {
 
     public static final String PLACEHOLDER_METHOD_NAME = "$[methodName]";
     public static final String PLACEHOLDER_ARGUMENTS = "$[arguments]";
@@ -32,96 +58,591 @@ public class CustomizableLoggedInterceptor extends AbstractTraceInterceptor {
     public static final String DEFAULT_EXIT_MESSAGE = "Finished " + PLACEHOLDER_METHOD_NAME + "(" + PLACEHOLDER_ARGUMENTS + "), " +
             "returned " + PLACEHOLDER_RETURN_VALUE;
     public static final String DEFAULT_EXCEPTION_MESSAGE = "Exception in " + PLACEHOLDER_METHOD_NAME + "(" + PLACEHOLDER_ARGUMENTS + ")";
+    public static final String DEFAULT_CANCEL_MESSAGE = "Cancelled " + PLACEHOLDER_METHOD_NAME + "(" + PLACEHOLDER_ARGUMENTS + ")";
 
-    protected Function<TraceData, String> enterMessageLambda;
+    private static final Log LOGGER = LogFactory.getLog(CustomizableLoggedInterceptor.class);
+
+    protected LogMessageTemplate enterMessageTemplate;
     protected LogLevel enterMessageLogLevel;
 
-    protected Function<TraceData, String> exitMessageLambda;
+    protected LogMessageTemplate exitMessageTemplate;
     protected LogLevel exitMessageLogLevel;
 
-    protected Function<TraceData, String> exceptionMessageLambda;
+    protected LogMessageTemplate exceptionMessageTemplate;
     protected LogLevel exceptionMessageLogLevel;
 
+    protected LogMessageTemplate cancelMessageTemplate;
+
+    protected LogFormat logFormat = LogFormat.TEXT;
+    protected LogMessageTemplate structuredEnterTemplate;
+    protected LogMessageTemplate structuredExitTemplate;
+    protected LogMessageTemplate structuredExceptionTemplate;
+    protected LogMessageTemplate structuredCancelTemplate;
+
+    protected boolean lazyMessageRendering;
+
+    protected int maxValueLength = -1;
+    protected int maxCollectionElements = -1;
+    protected int maxMessageLength = -1;
+    protected List<ArgumentRenderer<?>> argumentRenderers = Collections.emptyList();
+    protected ValueRenderer valueRenderer = ValueRenderer.UNBOUNDED;
+
+    protected List<AsyncResultHandler> asyncResultHandlers = Collections.emptyList();
+
+    protected int sampleEvery = 1;
+    protected double samplePercentage = 100;
+
+    protected long slowCallThreshold = -1;
+
+    protected MethodLatencyRegistry latencyRegistry;
+
+    protected AsyncLogPipeline asyncLogPipeline;
+
+    protected ExceptionAggregator exceptionAggregator;
+
+    protected PropagatedExceptionLogging propagatedExceptionLogging = PropagatedExceptionLogging.FULL;
+
+    protected TailLog tailLog;
+
+    protected LogBackend logBackend;
+
+    protected boolean summary;
+
+    protected MethodSummaryReporter summaryReporter;
+
+    private boolean useDynamicLogger;
+    private String loggerName;
+
+    //settings are changed and logged methods resolved under this interceptor's lock, so no logged method is built
+    //from half applied settings; the cache is replaced as a whole after every change, calls only read it
+    private volatile LoggedMethodCache loggedMethodCache = new LoggedMethodCache();
+    private final ConcurrentMap<Method, Set<Class<?>>> preparedMethods = new ConcurrentHashMap<>(64);
+    private volatile Map<String, LoggedOverride> overrides = Collections.emptyMap();
+
     public CustomizableLoggedInterceptor(LoggedInterceptorProperties properties){
+        setMaxValueLength(properties.getMaxValueLength());
+        setMaxCollectionElements(properties.getMaxCollectionElements());
+        setMaxMessageLength(properties.getMaxMessageLength());
         setEnterMessage(properties.getEnterMessage());
         setEnterMessageLogLevel(properties.getEnterMessageLogLevel());
         setExitMessage(properties.getExitMessage());
         setExitMessageLogLevel(properties.getExitMessageLogLevel());
         setExceptionMessage(properties.getExceptionMessage());
         setExceptionMessageLogLevel(properties.getExceptionMessageLogLevel());
+        setCancelMessage(properties.getCancelMessage());
+        setLogFormat(properties.getLogFormat());
         setUseDynamicLogger(properties.isUseDynamicLogger());
+        setLogBackend(properties.getLogBackend().create());
+        setLazyMessageRendering(properties.isLazyMessageRendering());
+        setSampleEvery(properties.getSampleEvery());
+        setSamplePercentage(properties.getSamplePercentage());
+        setSlowCallThreshold(properties.getSlowCallThreshold());
+        if (properties.isRecordLatency()) {
+            setLatencyRegistry(new MethodLatencyRegistry(properties.getLatencyPercentileWindow()));
+        }
+        if (properties.isAsyncLogging()) {
+            setAsyncLogPipeline(new AsyncLogPipeline(properties.getAsyncBufferSize(), properties.getAsyncOverflowPolicy()));
+        }
+        setPropagatedExceptionLogging(properties.getPropagatedExceptionLogging());
+        if (properties.getExceptionAggregationWindow() > 0) {
+            setExceptionAggregator(new ExceptionAggregator(properties.getExceptionAggregationWindow(),
+                    properties.getMaxAggregatedExceptions()));
+        }
+        setSummary(properties.isSummary());
+        if (properties.getSummaryInterval() > 0) {
+            setSummaryReporter(new MethodSummaryReporter(properties.getSummaryInterval()));
+        }
+        if (properties.getTailBufferSize() > 0) {
+            setTailLog(new TailLog(properties.getTailBufferSize()));
+        }
+        if (properties.isLogAsyncResults()) {
+            List<AsyncResultHandler> asyncResultHandlers = new ArrayList<>();
+            asyncResultHandlers.add(new CompletionStageResultHandler());
+            asyncResultHandlers.add(new ListenableFutureResultHandler());
+            if (REACTOR_PRESENT) {
+                asyncResultHandlers.add(new ReactorResultHandler());
+            }
+            setAsyncResultHandlers(asyncResultHandlers);
+        }
     }
 
-    public void setEnterMessage(String enterMessage) {
+    public synchronized void setEnterMessage(String enterMessage) {
         checkEnterMessage(enterMessage);
-        this.enterMessageLambda = buildLogMessageLambda(enterMessage);
+        this.enterMessageTemplate = compileTemplate(enterMessage);
+        clearLoggedMethodCache();
     }
 
-    public void setExitMessage(String exitMessage) {
+    public synchronized void setExitMessage(String exitMessage) {
         checkExitMessage(exitMessage);
-        this.exitMessageLambda = buildLogMessageLambda(exitMessage);
+        this.exitMessageTemplate = compileTemplate(exitMessage);
+        clearLoggedMethodCache();
     }
 
-    public void setExceptionMessage(String exceptionMessage) {
+    public synchronized void setExceptionMessage(String exceptionMessage) {
         checkExceptionMessage(exceptionMessage);
-        this.exceptionMessageLambda = buildLogMessageLambda(exceptionMessage);
+        this.exceptionMessageTemplate = compileTemplate(exceptionMessage);
+        clearLoggedMethodCache();
+    }
+
+    public synchronized void setCancelMessage(String cancelMessage) {
+        checkCancelMessage(cancelMessage);
+        this.cancelMessageTemplate = compileTemplate(cancelMessage);
+        clearLoggedMethodCache();
+    }
+
+    public synchronized void setLogFormat(LogFormat logFormat) {
+        Assert.notNull(logFormat, "Log format is null.");
+        this.logFormat = logFormat;
+        recompileTemplates();
     }
 
-    public void setEnterMessageLogLevel(LogLevel enterMessageLogLevel) {
+    public synchronized void setEnterMessageLogLevel(LogLevel enterMessageLogLevel) {
         validateLogLevel(enterMessageLogLevel);
         this.enterMessageLogLevel = enterMessageLogLevel;
+        clearLoggedMethodCache();
     }
 
-    public void setExitMessageLogLevel(LogLevel exitMessageLogLevel) {
+    public synchronized void setExitMessageLogLevel(LogLevel exitMessageLogLevel) {
         validateLogLevel(exitMessageLogLevel);
         this.exitMessageLogLevel = exitMessageLogLevel;
+        clearLoggedMethodCache();
     }
 
-    public void setExceptionMessageLogLevel(LogLevel exceptionMessageLogLevel) {
+    public synchronized void setExceptionMessageLogLevel(LogLevel exceptionMessageLogLevel) {
         validateLogLevel(exceptionMessageLogLevel);
         this.exceptionMessageLogLevel = exceptionMessageLogLevel;
+        clearLoggedMethodCache();
+    }
+
+    public synchronized void setLazyMessageRendering(boolean lazyMessageRendering) {
+        this.lazyMessageRendering = lazyMessageRendering;
+    }
+
+    public synchronized void setAsyncResultHandlers(List<AsyncResultHandler> asyncResultHandlers) {
+        this.asyncResultHandlers = new ArrayList<>(asyncResultHandlers);
+        clearLoggedMethodCache();
+    }
+
+    public synchronized void setMaxValueLength(int maxValueLength) {
+        this.maxValueLength = maxValueLength;
+        this.valueRenderer = new ValueRenderer(maxValueLength, maxCollectionElements, argumentRenderers);
+        recompileTemplates();
+    }
+
+    public synchronized void setMaxCollectionElements(int maxCollectionElements) {
+        this.maxCollectionElements = maxCollectionElements;
+        this.valueRenderer = new ValueRenderer(maxValueLength, maxCollectionElements, argumentRenderers);
+        recompileTemplates();
+    }
+
+    /**
+     * @param argumentRenderers renderers of argument and return values, the first matching one is used
+     */
+    public synchronized void setArgumentRenderers(List<? extends ArgumentRenderer<?>> argumentRenderers) {
+        this.argumentRenderers = new ArrayList<>(argumentRenderers);
+        this.valueRenderer = new ValueRenderer(maxValueLength, maxCollectionElements, argumentRenderers);
+        recompileTemplates();
+    }
+
+    public synchronized void setMaxMessageLength(int maxMessageLength) {
+        this.maxMessageLength = maxMessageLength;
+        recompileTemplates();
+    }
+
+    public synchronized void setSampleEvery(int sampleEvery) {
+        Sampler.of(sampleEvery, samplePercentage);
+        this.sampleEvery = sampleEvery;
+        clearLoggedMethodCache();
+    }
+
+    public synchronized void setSamplePercentage(double samplePercentage) {
+        Sampler.of(sampleEvery, samplePercentage);
+        this.samplePercentage = samplePercentage;
+        clearLoggedMethodCache();
+    }
+
+    public synchronized void setSlowCallThreshold(long slowCallThreshold) {
+        this.slowCallThreshold = slowCallThreshold;
+        clearLoggedMethodCache();
+    }
+
+    /**
+     * @param latencyRegistry registry to record the duration of every call of an enabled method, null to turn recording off
+     */
+    public synchronized void setLatencyRegistry(MethodLatencyRegistry latencyRegistry) {
+        this.latencyRegistry = latencyRegistry;
+        clearLoggedMethodCache();
+    }
+
+    public MethodLatencyRegistry getLatencyRegistry() {
+        return latencyRegistry;
+    }
+
+    /**
+     * @param asyncLogPipeline pipeline to render and log messages on, null to log on the calling thread
+     */
+    public synchronized void setAsyncLogPipeline(AsyncLogPipeline asyncLogPipeline) {
+        this.asyncLogPipeline = asyncLogPipeline;
+    }
+
+    public AsyncLogPipeline getAsyncLogPipeline() {
+        return asyncLogPipeline;
+    }
+
+    /**
+     * @param exceptionAggregator aggregator of repeated exceptions, null to log every exception in full
+     */
+    public synchronized void setExceptionAggregator(ExceptionAggregator exceptionAggregator) {
+        this.exceptionAggregator = exceptionAggregator;
+    }
+
+    public synchronized void setPropagatedExceptionLogging(PropagatedExceptionLogging propagatedExceptionLogging) {
+        Assert.notNull(propagatedExceptionLogging, "Propagated exception logging is null.");
+        this.propagatedExceptionLogging = propagatedExceptionLogging;
+    }
+
+    /**
+     * @param summary true to summarize the calls of methods not annotated otherwise instead of logging each of them
+     */
+    public synchronized void setSummary(boolean summary) {
+        this.summary = summary;
+        clearLoggedMethodCache();
+    }
+
+    /**
+     * @param summaryReporter reporter of summarized methods, null to log every call even of summarized methods
+     */
+    public synchronized void setSummaryReporter(MethodSummaryReporter summaryReporter) {
+        this.summaryReporter = summaryReporter;
+        clearLoggedMethodCache();
+    }
+
+    /**
+     * @param logBackend backend logged methods log straight to, null to log through commons-logging
+     */
+    public synchronized void setLogBackend(LogBackend logBackend) {
+        this.logBackend = logBackend;
+        clearLoggedMethodCache();
+    }
+
+    /**
+     * @param tailLog buffer of the messages of a thread's logged calls, logged only when an exception is;
+     *                null to log every message right away
+     */
+    public synchronized void setTailLog(TailLog tailLog) {
+        this.tailLog = tailLog;
+    }
+
+    /**
+     * Changes the settings of the logged methods whose qualified name is or starts with {@code name},
+     * e.g. {@code com.acme.OrderService.find}, {@code com.acme.OrderService} or {@code com.acme}.
+     * More specific overrides win attribute by attribute, sampling being one attribute.
+     * Takes effect on the next call of each method; if the settings it results in are invalid for a prepared method,
+     * the override is rejected and the current ones kept.
+     */
+    public synchronized void setOverride(String name, LoggedOverride override) {
+        Assert.hasText(name, "name must not be empty");
+        Assert.notNull(override, "Override is null.");
+        if (override.getEnterMessage() != null) {
+            checkEnterMessage(override.getEnterMessage());
+        }
+        if (override.getExitMessage() != null) {
+            checkExitMessage(override.getExitMessage());
+        }
+        if (override.getExceptionMessage() != null) {
+            checkExceptionMessage(override.getExceptionMessage());
+        }
+        Sampler.of(override.getSampleEvery() != null ? override.getSampleEvery() : 1,
+                override.getSamplePercentage() != null ? override.getSamplePercentage() : 100);
+        Map<String, LoggedOverride> updated = new HashMap<>(overrides);
+        updated.put(name, override);
+        replaceOverrides(updated);
+    }
+
+    /**
+     * @return false if there was no override for the name
+     */
+    public synchronized boolean removeOverride(String name) {
+        if (!overrides.containsKey(name)) {
+            return false;
+        }
+        Map<String, LoggedOverride> updated = new HashMap<>(overrides);
+        updated.remove(name);
+        replaceOverrides(updated);
+        return true;
+    }
+
+    /**
+     * Applies the overrides to the prepared methods, or keeps the current ones if that fails.
+     */
+    private void replaceOverrides(Map<String, LoggedOverride> updated) {
+        Map<String, LoggedOverride> previous = this.overrides;
+        this.overrides = Collections.unmodifiableMap(updated);
+        try {
+            clearLoggedMethodCache();
+        } catch (RuntimeException e) {
+            this.overrides = previous;
+            clearLoggedMethodCache();
+            throw e;
+        }
+    }
+
+    public Map<String, LoggedOverride> getOverrides() {
+        return overrides;
+    }
+
+    protected LogMessageTemplate compileTemplate(String message) {
+        return LogMessageTemplate.compile(message, valueRenderer, maxMessageLength);
+    }
+
+    private void recompileTemplates() {
+        if (enterMessageTemplate != null) {
+            setEnterMessage(enterMessageTemplate.getMessage());
+        }
+        if (exitMessageTemplate != null) {
+            setExitMessage(exitMessageTemplate.getMessage());
+        }
+        if (exceptionMessageTemplate != null) {
+            setExceptionMessage(exceptionMessageTemplate.getMessage());
+        }
+        if (cancelMessageTemplate != null) {
+            setCancelMessage(cancelMessageTemplate.getMessage());
+        }
+        if (logFormat != LogFormat.TEXT) {
+            structuredEnterTemplate = StructuredTemplates.compile(logFormat, EVENT_ENTER, false, false, valueRenderer);
+            structuredExitTemplate = StructuredTemplates.compile(logFormat, EVENT_EXIT, true, true, valueRenderer);
+            structuredExceptionTemplate = StructuredTemplates.compile(logFormat, EVENT_EXCEPTION, false, true, valueRenderer);
+            structuredCancelTemplate = StructuredTemplates.compile(logFormat, EVENT_CANCEL, false, true, valueRenderer);
+        }
+        clearLoggedMethodCache();
+    }
+
+    @Override
+    public synchronized void setUseDynamicLogger(boolean useDynamicLogger) {
+        super.setUseDynamicLogger(useDynamicLogger);
+        this.useDynamicLogger = useDynamicLogger;
+        clearLoggedMethodCache();
+    }
+
+    @Override
+    public synchronized void setLoggerName(String loggerName) {
+        super.setLoggerName(loggerName);
+        this.loggerName = loggerName;
+        this.useDynamicLogger = false;
+        clearLoggedMethodCache();
+    }
+
+    @Override
+    public synchronized void setHideProxyClassNames(boolean hideProxyClassNames) {
+        super.setHideProxyClassNames(hideProxyClassNames);
+        clearLoggedMethodCache();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        return invokeUnderTrace(invocation, getLoggedMethod(invocation));
     }
 
     @Override
     protected Object invokeUnderTrace(MethodInvocation invocation, Log logger) throws Throwable {
-        long startTime = System.currentTimeMillis();
+        LoggedMethod loggedMethod = getLoggedMethod(invocation);
+        if (loggedMethod.getLogger() != logger) {
+            loggedMethod = loggedMethod.withLogger(logger);
+        }
+        return invokeUnderTrace(invocation, loggedMethod);
+    }
 
-        try {
-            logEnterMessage(invocation, logger);
+    protected Object invokeUnderTrace(MethodInvocation invocation, LoggedMethod loggedMethod) throws Throwable {
+        if (!loggedMethod.isEnabled()) {
+            return invocation.proceed();
+        }
 
+        long startTime = System.nanoTime();
+        try {
+            boolean sampled = beforeInvocation(invocation, loggedMethod);
             Object returnValue = invocation.proceed();
-            logExitMessage(invocation, logger, returnValue, startTime);
+            return afterReturning(invocation, loggedMethod, returnValue, startTime, sampled);
+        } catch (Throwable ex) {
+            afterThrowing(invocation, loggedMethod, ex, startTime);
+            throw ex;
+        }
+    }
+
+    /**
+     * Samples the call and logs its enter message; the invocation is not proceeded.
+     *
+     * @return true if the call is sampled
+     */
+    protected boolean beforeInvocation(MethodInvocation invocation, LoggedMethod loggedMethod) {
+        LoggedExceptions.enterFrame();
+        if (tailLog != null) {
+            tailLog.enterFrame();
+        }
+        AsyncResultHandler asyncResultHandler = loggedMethod.getAsyncResultHandler();
+        boolean lazyAsyncResult = asyncResultHandler != null && asyncResultHandler.isLazy();
+        //lazy results are sampled per subscription instead
+        boolean sampled = lazyAsyncResult || loggedMethod.sample();
+        //with a slow call threshold the enter message is not rendered, exit repeats the arguments if needed
+        if (sampled && !lazyAsyncResult && loggedMethod.getSlowCallThreshold() < 0) {
+            logEnterMessage(invocation, loggedMethod);
+        }
+        return sampled;
+    }
+
+    /**
+     * Records and logs a completed call, or hooks into its asynchronous result.
+     *
+     * @return the value to return to the caller
+     */
+    protected Object afterReturning(MethodInvocation invocation, LoggedMethod loggedMethod, Object returnValue,
+                                    long startTime, boolean sampled) {
+        try {
+            AsyncResultHandler asyncResultHandler = loggedMethod.getAsyncResultHandler();
+            if (asyncResultHandler != null && returnValue != null) {
+                return asyncResultHandler.handle(returnValue,
+                        new AsyncInvocationListener(invocation, loggedMethod, startTime, sampled));
+            }
 
+            long executionTime = System.nanoTime() - startTime;
+            loggedMethod.recordLatency(executionTime, false);
+            if (sampled && loggedMethod.isSlowCall(executionTime)) {
+                logExitMessage(invocation, loggedMethod, returnValue, startTime);
+            }
             return returnValue;
-        } catch (Throwable ex) {
-            logExceptionMessage(invocation, logger, ex, startTime);
+        } finally {
+            LoggedExceptions.exitFrame();
+            if (tailLog != null) {
+                tailLog.exitFrame();
+            }
+        }
+    }
 
-            throw ex;
+    protected void afterThrowing(MethodInvocation invocation, LoggedMethod loggedMethod, Throwable ex, long startTime) {
+        try {
+            loggedMethod.recordLatency(System.nanoTime() - startTime, true);
+            logExceptionMessage(invocation, loggedMethod, ex, startTime);
+        } finally {
+            LoggedExceptions.exitFrame();
+            if (tailLog != null) {
+                tailLog.exitFrame();
+            }
         }
     }
 
-    protected void logEnterMessage(MethodInvocation invocation, Log logger) {
-        if (isLogLevelEnabled(logger, enterMessageLogLevel)) {
-            String enterMessage = enterMessageLambda.apply(new TraceData(invocation, null, -1));
-            log(logger, enterMessageLogLevel, enterMessage, null);
+    protected void logEnterMessage(MethodInvocation invocation, LoggedMethod loggedMethod) {
+        LogHandle logHandle = loggedMethod.getEnterLogHandle();
+        if (isTailRecording() || logHandle.isEnabled()) {
+            logMessage(logHandle, loggedMethod.getEnterMessageTemplate(), loggedMethod,
+                    invocation.getArguments(), null, -1, null);
         }
     }
 
-    protected void logExitMessage(MethodInvocation invocation, Log logger, Object returnValue, long startTime) {
-        if (isLogLevelEnabled(logger, exitMessageLogLevel)) {
-            long executionTime = System.currentTimeMillis() - startTime;
-            TraceData exitTraceData = new TraceData(invocation, returnValue, executionTime);
-            String exitMessage = exitMessageLambda.apply(exitTraceData);
-            log(logger, exitMessageLogLevel, exitMessage, null);
+    protected void logExitMessage(MethodInvocation invocation, LoggedMethod loggedMethod, Object returnValue, long startTime) {
+        LogHandle logHandle = loggedMethod.getExitLogHandle();
+        if (isTailRecording() || logHandle.isEnabled()) {
+            long executionTime = elapsedMillis(startTime);
+            logMessage(logHandle, loggedMethod.getExitMessageTemplate(), loggedMethod,
+                    invocation.getArguments(), returnValue, executionTime, null);
         }
     }
 
-    protected void logExceptionMessage(MethodInvocation invocation, Log logger, Throwable throwable, long startTime) {
-        if (isLogLevelEnabled(logger, exceptionMessageLogLevel)) {
-            long executionTime = System.currentTimeMillis() - startTime;
-            TraceData exceptionTraceData = new TraceData(invocation, null, executionTime);
-            String exceptionMessage = exceptionMessageLambda.apply(exceptionTraceData);
-            log(logger, exceptionMessageLogLevel, exceptionMessage, throwable);
+    protected void logExceptionMessage(MethodInvocation invocation, LoggedMethod loggedMethod, Throwable throwable, long startTime) {
+        LogHandle logHandle = loggedMethod.getExceptionLogHandle();
+        if (logHandle.isEnabled()) {
+            boolean propagated = false;
+            if (propagatedExceptionLogging != PropagatedExceptionLogging.FULL) {
+                if (!LoggedExceptions.isLogged(throwable)) {
+                    LoggedExceptions.markLogged(throwable);
+                } else if (propagatedExceptionLogging == PropagatedExceptionLogging.NONE) {
+                    return;
+                } else {
+                    propagated = true;
+                }
+            }
+            if (exceptionAggregator != null && !exceptionAggregator.shouldLog(loggedMethod, logHandle, throwable)) {
+                return;
+            }
+            if (propagated) {
+                //a line of its own, so it is not mistaken for a new failure logged without its stack trace
+                logHandle.log("Exception propagated through " + loggedMethod.getMethod().getName() + ": " + throwable, null);
+                return;
+            }
+            if (isTailRecording()) {
+                tailLog.recordFailure(logHandle, throwable);
+            }
+            long executionTime = elapsedMillis(startTime);
+            logMessage(logHandle, loggedMethod.getExceptionMessageTemplate(), loggedMethod,
+                    invocation.getArguments(), null, executionTime, throwable);
+        }
+    }
+
+    protected void logCancelMessage(MethodInvocation invocation, LoggedMethod loggedMethod, long startTime) {
+        LogHandle logHandle = loggedMethod.getExitLogHandle();
+        if (isTailRecording() || logHandle.isEnabled()) {
+            long executionTime = elapsedMillis(startTime);
+            LogMessageTemplate template = logFormat != LogFormat.TEXT ? structuredCancelTemplate : cancelMessageTemplate;
+            logMessage(logHandle, template, loggedMethod, invocation.getArguments(), null, executionTime, null);
+        }
+    }
+
+    /**
+     * Logs right away, keeps the message in the tail log, or hands it over to the async pipeline
+     * to be rendered and logged there.
+     */
+    protected void logMessage(LogHandle logHandle, LogMessageTemplate template, LoggedMethod loggedMethod,
+                              Object[] arguments, Object returnValue, long executionTime, Throwable throwable) {
+        if (isTailRecording()) {
+            tailLog.record(logHandle.getLogLevel(), template, loggedMethod, arguments, returnValue, executionTime);
+        } else if (asyncLogPipeline != null) {
+            asyncLogPipeline.publish(logHandle, template, loggedMethod, arguments, returnValue, executionTime, throwable);
+        } else if (lazyMessageRendering) {
+            logHandle.log(buildLazyMessage(template, loggedMethod, arguments, returnValue, executionTime), throwable);
+        } else {
+            logHandle.log(template, new TraceData(loggedMethod.getTargetClass(), loggedMethod.getMethod(), arguments,
+                    loggedMethod.getArgumentMask(), returnValue, executionTime), throwable);
+        }
+    }
+
+    /**
+     * @return false if a call of the method would be neither logged nor recorded, whatever its arguments
+     */
+    protected boolean isObserved(LoggedMethod loggedMethod) {
+        return loggedMethod.isEnabled() && (tailLog != null || loggedMethod.getLatencyHistogram() != null
+                || loggedMethod.getSummary() != null || loggedMethod.getEnterLogHandle().isEnabled()
+                || loggedMethod.getExitLogHandle().isEnabled() || loggedMethod.getExceptionLogHandle().isEnabled());
+    }
+
+    private boolean isTailRecording() {
+        return tailLog != null && tailLog.isRecording();
+    }
+
+    private static long elapsedMillis(long startTime) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+    }
+
+    /**
+     * @return message rendered only when the logging framework asks for it, over a snapshot of the arguments
+     */
+    protected Object buildLazyMessage(LogMessageTemplate template, LoggedMethod loggedMethod,
+                                      Object[] arguments, Object returnValue, long executionTime) {
+        Object[] argumentsSnapshot = arguments != null ? arguments.clone() : null;
+        return new LazyLogMessage(template, new TraceData(loggedMethod.getTargetClass(), loggedMethod.getMethod(), argumentsSnapshot,
+                loggedMethod.getArgumentMask(), returnValue, executionTime));
+    }
+
+    /**
+     * Logs pending exception and method summaries and the messages still in the async pipeline, if any, and stops them.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (exceptionAggregator != null) {
+            exceptionAggregator.close();
+        }
+        if (summaryReporter != null) {
+            summaryReporter.close();
+        }
+        if (asyncLogPipeline != null) {
+            asyncLogPipeline.close();
         }
     }
 
@@ -130,53 +651,309 @@ public class CustomizableLoggedInterceptor extends AbstractTraceInterceptor {
         return true;
     }
 
+    /**
+     * Resolves and validates the logging of a method ahead of its first call, e.g. when its bean is created,
+     * so invalid settings fail then instead of the call. The method is resolved again whenever the settings change.
+     *
+     * @param targetClass class of the object the method will be invoked on
+     */
+    public synchronized void prepareLoggedMethod(Method method, Class<?> targetClass) {
+        resolveLoggedMethod(method, targetClass);
+        preparedMethods.computeIfAbsent(method, key -> ConcurrentHashMap.newKeySet()).add(targetClass);
+    }
 
-    private static Function<TraceData, String> buildLogMessageLambda(String message) {
-        List<Function<TraceData, String>> chunks = new ArrayList<>();
-        Matcher matcher = PATTERN.matcher(message);
-        int previousMatchEnd = 0;
-        while (matcher.find()) {
-            String textChunk = message.substring(previousMatchEnd, matcher.start());
-            chunks.add(data -> textChunk);
+    protected LoggedMethod getLoggedMethod(MethodInvocation invocation) {
+        Method method = invocation.getMethod();
+        return getLoggedMethod(method, getTargetClassForLogging(invocation.getThis(), method));
+    }
 
-            String placeholder = matcher.group();
-            if (PLACEHOLDER_METHOD_NAME.equals(placeholder)) {
-                chunks.add(data -> data.methodInvocation.getMethod().getName());
-            } else if (PLACEHOLDER_ARGUMENTS.equals(placeholder)) {
-                chunks.add(data -> StringUtils.arrayToCommaDelimitedString(data.methodInvocation.getArguments()));
-            } else if (PLACEHOLDER_RETURN_VALUE.equals(placeholder)) {
-                chunks.add(data -> {
-                    if (data.methodInvocation.getMethod().getReturnType() == void.class) {
-                        return "void";
-                    } else if (data.returnValue == null) {
-                        return "null";
-                    } else {
-                        return data.returnValue.toString();
-                    }
-                });
-            } else if (PLACEHOLDER_INVOCATION_TIME.equals(placeholder)) {
-                chunks.add(data -> Long.toString(data.executionTime));
-            } else {
-                throw new IllegalArgumentException("Unknown placeholder [" + placeholder + "]");
+    protected LoggedMethod getLoggedMethod(Method method, Class<?> targetClass) {
+        LoggedMethodCache cache = loggedMethodCache;
+        LoggedMethod loggedMethod = cache.perMethod.get(method);
+        if (loggedMethod != null) {
+            if (loggedMethod.getTargetClass() == targetClass) {
+                return loggedMethod;
+            }
+            Map<Class<?>, LoggedMethod> perTargetClass = cache.perTargetClass.get(method);
+            loggedMethod = perTargetClass != null ? perTargetClass.get(targetClass) : null;
+            if (loggedMethod != null) {
+                return loggedMethod;
             }
-            previousMatchEnd = matcher.end();
         }
-        String textChunk = message.substring(previousMatchEnd, message.length());
-        chunks.add(data -> textChunk);
+        //neither prepared nor called since the last settings change
+        return resolveCalledMethod(method, targetClass);
+    }
 
-        return traceData -> chunks.stream().map(chunk -> chunk.apply(traceData)).collect(Collectors.joining());
+    private synchronized LoggedMethod resolveLoggedMethod(Method method, Class<?> targetClass) {
+        return resolveLoggedMethod(loggedMethodCache, method, targetClass, this::createLoggedMethod);
     }
 
-    private static class TraceData {
+    /**
+     * Resolves a method on its call; if its settings are invalid the error is logged once and the method is called
+     * unlogged, so configuration errors do not fail business calls.
+     */
+    private synchronized LoggedMethod resolveCalledMethod(Method method, Class<?> targetClass) {
+        return resolveLoggedMethod(loggedMethodCache, method, targetClass, (key, type) -> {
+            try {
+                return createLoggedMethod(key, type);
+            } catch (RuntimeException e) {
+                LOGGER.error("Invalid logging settings of " + ClassUtils.getQualifiedMethodName(key, type)
+                        + ", its calls are not logged", e);
+                return new LoggedMethod(key, type, LOGGER, false, null, null, null, -1, null,
+                        null, LogLevel.OFF, null, LogLevel.OFF, null, LogLevel.OFF);
+            }
+        });
+    }
 
-        public final MethodInvocation methodInvocation;
-        public final Object returnValue;
-        public final long executionTime;
+    private LoggedMethod resolveLoggedMethod(LoggedMethodCache cache, Method method, Class<?> targetClass,
+                                             BiFunction<Method, Class<?>, LoggedMethod> factory) {
+        LoggedMethod loggedMethod = cache.perMethod.computeIfAbsent(method, key -> factory.apply(method, targetClass));
+        if (loggedMethod.getTargetClass() == targetClass) {
+            return loggedMethod;
+        }
+        //same method invoked on beans of different classes, e.g. inherited from a common parent
+        return cache.perTargetClass.computeIfAbsent(method, key -> new ConcurrentHashMap<>(4))
+                .computeIfAbsent(targetClass, key -> factory.apply(method, targetClass));
+    }
+
+    protected LoggedMethod createLoggedMethod(Method method, Class<?> targetClass) {
+        Log logger = useDynamicLogger || defaultLogger == null ? LogFactory.getLog(targetClass) : defaultLogger;
+
+        Class<?> userClass = ClassUtils.getUserClass(targetClass);
+        Method specificMethod = ClassUtils.getMostSpecificMethod(method, userClass);
+        Logged methodLogged = AnnotatedElementUtils.findMergedAnnotation(specificMethod, Logged.class);
+        Logged classLogged = AnnotatedElementUtils.findMergedAnnotation(userClass, Logged.class);
+        ArgumentMask argumentMask = specificMethod.equals(method)
+                ? ArgumentMask.forMethod(method) : ArgumentMask.forMethod(method, specificMethod);
+        AsyncResultHandler asyncResultHandler = findAsyncResultHandler(method.getReturnType());
+        LoggedOverride override = resolveOverride(ClassUtils.getQualifiedMethodName(method, userClass));
+        Sampler sampler = override != null && (override.getSampleEvery() != null || override.getSamplePercentage() != null)
+                ? Sampler.of(overridden(override, LoggedOverride::getSampleEvery, 1),
+                        overridden(override, LoggedOverride::getSamplePercentage, 100d))
+                : resolveSampler(methodLogged, classLogged);
+        long slowCallThreshold = overridden(override, LoggedOverride::getSlowCallThreshold,
+                resolveSlowCallThreshold(methodLogged, classLogged));
+        LatencyHistogram latencyHistogram = latencyRegistry != null ? latencyRegistry.histogramFor(userClass, method) : null;
+        boolean enabled = overridden(override, LoggedOverride::getEnabled,
+                methodLogged != null ? methodLogged.enabled() : classLogged == null || classLogged.enabled());
+
+        String enterMessage = overridden(override, LoggedOverride::getEnterMessage,
+                resolveMessage(methodLogged, classLogged, Logged::enterMessage));
+        String exitMessage = overridden(override, LoggedOverride::getExitMessage,
+                resolveMessage(methodLogged, classLogged, Logged::exitMessage));
+        String exceptionMessage = overridden(override, LoggedOverride::getExceptionMessage,
+                resolveMessage(methodLogged, classLogged, Logged::exceptionMessage));
+        if (enterMessage != null) {
+            checkEnterMessage(enterMessage);
+        }
+        if (exitMessage != null) {
+            checkExitMessage(exitMessage);
+        }
+        if (exceptionMessage != null) {
+            checkExceptionMessage(exceptionMessage);
+        }
+
+        LoggedMethod loggedMethod = new LoggedMethod(method, targetClass, logger, enabled, argumentMask, asyncResultHandler,
+                sampler, slowCallThreshold, latencyHistogram,
+                resolveTemplate(enterMessage, enterMessageTemplate, structuredEnterTemplate),
+                overridden(override, LoggedOverride::getEnterMessageLogLevel,
+                        resolveLogLevel(methodLogged, classLogged, Logged::enterMessageLogLevel, enterMessageLogLevel)),
+                resolveTemplate(exitMessage, exitMessageTemplate, structuredExitTemplate),
+                overridden(override, LoggedOverride::getExitMessageLogLevel,
+                        resolveLogLevel(methodLogged, classLogged, Logged::exitMessageLogLevel, exitMessageLogLevel)),
+                resolveTemplate(exceptionMessage, exceptionMessageTemplate, structuredExceptionTemplate),
+                overridden(override, LoggedOverride::getExceptionMessageLogLevel,
+                        resolveLogLevel(methodLogged, classLogged, Logged::exceptionMessageLogLevel, exceptionMessageLogLevel)));
+        if (logBackend != null) {
+            loggedMethod = loggedMethod.withLogBackend(logBackend, getLoggerName(targetClass));
+        }
+        if (summaryReporter != null && resolveSummary(methodLogged, classLogged)) {
+            loggedMethod = loggedMethod.withSummary(
+                    summaryReporter.summaryFor(userClass, method, loggedMethod.getExitLogHandle()));
+        }
+        return loggedMethod;
+    }
 
-        public TraceData(MethodInvocation methodInvocation, Object returnValue, long executionTime) {
-            this.methodInvocation = methodInvocation;
-            this.returnValue = returnValue;
-            this.executionTime = executionTime;
+    private String getLoggerName(Class<?> targetClass) {
+        if (useDynamicLogger) {
+            return targetClass.getName();
+        }
+        return loggerName != null ? loggerName : getClass().getName();
+    }
+
+    /**
+     * @return overrides of the method, its class and its packages merged, the most specific first; null if there are none
+     */
+    private LoggedOverride resolveOverride(String qualifiedMethodName) {
+        Map<String, LoggedOverride> overrides = this.overrides;
+        if (overrides.isEmpty()) {
+            return null;
+        }
+        LoggedOverride merged = null;
+        String name = qualifiedMethodName;
+        while (true) {
+            LoggedOverride override = overrides.get(name);
+            if (override != null) {
+                merged = merged != null ? merged.orElse(override) : override;
+            }
+            int lastDot = name.lastIndexOf('.');
+            if (lastDot < 0) {
+                return merged;
+            }
+            name = name.substring(0, lastDot);
+        }
+    }
+
+    private static <T> T overridden(LoggedOverride override, Function<LoggedOverride, T> attribute, T value) {
+        T overriddenValue = override != null ? attribute.apply(override) : null;
+        return overriddenValue != null ? overriddenValue : value;
+    }
+
+    private LogMessageTemplate resolveTemplate(String message, LogMessageTemplate defaultTemplate,
+                                               LogMessageTemplate structuredTemplate) {
+        if (logFormat != LogFormat.TEXT) {
+            return structuredTemplate;
+        }
+        return message != null ? compileTemplate(message) : defaultTemplate;
+    }
+
+    private AsyncResultHandler findAsyncResultHandler(Class<?> returnType) {
+        for (AsyncResultHandler asyncResultHandler : asyncResultHandlers) {
+            if (asyncResultHandler.supports(returnType)) {
+                return asyncResultHandler;
+            }
+        }
+        return null;
+    }
+
+    private static String resolveMessage(Logged methodLogged, Logged classLogged, Function<Logged, String> attribute) {
+        if (methodLogged != null && !attribute.apply(methodLogged).isEmpty()) {
+            return attribute.apply(methodLogged);
+        }
+        if (classLogged != null && !attribute.apply(classLogged).isEmpty()) {
+            return attribute.apply(classLogged);
+        }
+        return null;
+    }
+
+    private static LogLevel resolveLogLevel(Logged methodLogged, Logged classLogged,
+                                            Function<Logged, LogLevel[]> attribute, LogLevel defaultLogLevel) {
+        for (Logged logged : new Logged[]{methodLogged, classLogged}) {
+            if (logged != null) {
+                LogLevel[] logLevel = attribute.apply(logged);
+                Assert.isTrue(logLevel.length <= 1, "Only one log level may be specified in " + logged);
+                if (logLevel.length == 1) {
+                    return logLevel[0];
+                }
+            }
+        }
+        return defaultLogLevel;
+    }
+
+    private Sampler resolveSampler(Logged methodLogged, Logged classLogged) {
+        for (Logged logged : new Logged[]{methodLogged, classLogged}) {
+            if (logged != null && (logged.sampleEvery().length > 0 || logged.samplePercentage().length > 0)) {
+                Assert.isTrue(logged.sampleEvery().length <= 1 && logged.samplePercentage().length <= 1,
+                        "Only one sampling value may be specified in " + logged);
+                return Sampler.of(logged.sampleEvery().length == 1 ? logged.sampleEvery()[0] : 1,
+                        logged.samplePercentage().length == 1 ? logged.samplePercentage()[0] : 100);
+            }
+        }
+        //a new sampler for every method, so methods are sampled independently
+        return Sampler.of(sampleEvery, samplePercentage);
+    }
+
+    private boolean resolveSummary(Logged methodLogged, Logged classLogged) {
+        for (Logged logged : new Logged[]{methodLogged, classLogged}) {
+            if (logged != null) {
+                boolean[] summary = logged.summary();
+                Assert.isTrue(summary.length <= 1, "Only one summary flag may be specified in " + logged);
+                if (summary.length == 1) {
+                    return summary[0];
+                }
+            }
+        }
+        return this.summary;
+    }
+
+    private long resolveSlowCallThreshold(Logged methodLogged, Logged classLogged) {
+        for (Logged logged : new Logged[]{methodLogged, classLogged}) {
+            if (logged != null) {
+                long[] slowCallThreshold = logged.slowCallThreshold();
+                Assert.isTrue(slowCallThreshold.length <= 1, "Only one slow call threshold may be specified in " + logged);
+                if (slowCallThreshold.length == 1) {
+                    return slowCallThreshold[0];
+                }
+            }
+        }
+        return this.slowCallThreshold;
+    }
+
+    protected Class<?> getTargetClassForLogging(Object target, Method method) {
+        return target != null ? getClassForLogging(target) : method.getDeclaringClass();
+    }
+
+    /**
+     * Drops the logged methods resolved with the previous settings and resolves the prepared ones again,
+     * so their calls keep finding them in the cache.
+     */
+    protected synchronized void clearLoggedMethodCache() {
+        LoggedMethodCache cache = new LoggedMethodCache();
+        preparedMethods.forEach((method, targetClasses) ->
+                targetClasses.forEach(targetClass -> resolveLoggedMethod(cache, method, targetClass, this::createLoggedMethod)));
+        loggedMethodCache = cache;
+    }
+
+    private static final class LoggedMethodCache {
+        private final ConcurrentMap<Method, LoggedMethod> perMethod = new ConcurrentHashMap<>(64);
+        //keyed by method first so a lookup needs no composite key object
+        private final ConcurrentMap<Method, ConcurrentMap<Class<?>, LoggedMethod>> perTargetClass = new ConcurrentHashMap<>();
+    }
+
+
+    private class AsyncInvocationListener implements AsyncResultListener {
+
+        private final MethodInvocation invocation;
+        private final LoggedMethod loggedMethod;
+        private final long startTime;
+        private final boolean sampled;
+
+        AsyncInvocationListener(MethodInvocation invocation, LoggedMethod loggedMethod, long startTime, boolean sampled) {
+            this.invocation = invocation;
+            this.loggedMethod = loggedMethod;
+            this.startTime = startTime;
+            this.sampled = sampled;
+        }
+
+        @Override
+        public void onSuccess(Object value) {
+            long executionTime = System.nanoTime() - startTime;
+            loggedMethod.recordLatency(executionTime, false);
+            if (sampled && loggedMethod.isSlowCall(executionTime)) {
+                logExitMessage(invocation, loggedMethod, value, startTime);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            loggedMethod.recordLatency(System.nanoTime() - startTime, true);
+            logExceptionMessage(invocation, loggedMethod, error, startTime);
+        }
+
+        @Override
+        public AsyncResultListener onSubscribe() {
+            boolean subscriptionSampled = loggedMethod.sample();
+            if (subscriptionSampled && loggedMethod.getSlowCallThreshold() < 0) {
+                logEnterMessage(invocation, loggedMethod);
+            }
+            return new AsyncInvocationListener(invocation, loggedMethod, System.nanoTime(), subscriptionSampled);
+        }
+
+        @Override
+        public void onCancel() {
+            if (sampled && loggedMethod.isSlowCall(System.nanoTime() - startTime)) {
+                logCancelMessage(invocation, loggedMethod, startTime);
+            }
         }
     }
 
@@ -198,6 +975,13 @@ public class CustomizableLoggedInterceptor extends AbstractTraceInterceptor {
         checkForInvalidPlaceholders(exitMessage);
     }
 
+    protected void checkCancelMessage(String cancelMessage) {
+        Assert.hasText(cancelMessage, "cancelMessage must not be empty");
+        checkForInvalidPlaceholders(cancelMessage);
+        Assert.doesNotContain(cancelMessage, PLACEHOLDER_RETURN_VALUE,
+                "cancelMessage cannot contain placeholder " + PLACEHOLDER_RETURN_VALUE);
+    }
+
     protected void checkExceptionMessage(String exceptionMessage) {
         Assert.hasText(exceptionMessage, "exceptionMessage must not be empty");
         checkForInvalidPlaceholders(exceptionMessage);
@@ -205,7 +989,10 @@ public class CustomizableLoggedInterceptor extends AbstractTraceInterceptor {
                 "exceptionMessage cannot contain placeholder " + PLACEHOLDER_RETURN_VALUE);
     }
 
-    private static final Pattern PATTERN = Pattern.compile("\\$\\[\\p{Alpha}+\\]");
+    private static final boolean REACTOR_PRESENT = ClassUtils.isPresent(
+            "reactor.core.publisher.Flux", CustomizableLoggedInterceptor.class.getClassLoader());
+
+    static final Pattern PATTERN = Pattern.compile("\\$\\[\\p{Alpha}+\\]");
     private static final Set<Object> ALLOWED_PLACEHOLDERS =
             new Constants(CustomizableTraceInterceptor.class).getValues("PLACEHOLDER_");
 
@@ -0,0 +1,32 @@
+package aspect.logger;
+
+/**
+ * Log message handed to the logging backend unrendered.
+ * The template is rendered on the first {@link #toString()} call, i.e. only once the backend
+ * has decided to actually write the event, and possibly on its own (async) thread.
+ */
+public final class LazyLogMessage {
+
+    private final LogMessageTemplate template;
+    private final TraceData data;
+    private String formattedMessage;
+
+    public LazyLogMessage(LogMessageTemplate template, TraceData data) {
+        this.template = template;
+        this.data = data;
+    }
+
+    public String getFormattedMessage() {
+        String message = formattedMessage;
+        if (message == null) {
+            message = template.render(data);
+            formattedMessage = message;
+        }
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return getFormattedMessage();
+    }
+}
@@ -0,0 +1,19 @@
+package aspect.logger;
+
+/**
+ * Layout of logged messages.
+ */
+public enum LogFormat {
+    /**
+     * Message templates with {@code $[...]} placeholders.
+     */
+    TEXT,
+    /**
+     * One JSON object per message, e.g. {@code {"event":"exit","class":"a.Service","method":"find","arguments":[1,"a"],"returnValue":"x","durationMs":3}}.
+     */
+    JSON,
+    /**
+     * Space separated key=value pairs with quoted values, e.g. {@code event=exit class=a.Service method=find arguments="1,a" returnValue="x" durationMs=3}.
+     */
+    KEY_VALUE
+}
@@ -0,0 +1,188 @@
+package aspect.logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+import static aspect.logger.CustomizableLoggedInterceptor.PATTERN;
+import static aspect.logger.CustomizableLoggedInterceptor.PLACEHOLDER_ARGUMENTS;
+import static aspect.logger.CustomizableLoggedInterceptor.PLACEHOLDER_INVOCATION_TIME;
+import static aspect.logger.CustomizableLoggedInterceptor.PLACEHOLDER_METHOD_NAME;
+import static aspect.logger.CustomizableLoggedInterceptor.PLACEHOLDER_RETURN_VALUE;
+import static aspect.logger.ValueRenderer.TRUNCATED;
+import static aspect.logger.ValueRenderer.truncate;
+
+/**
+ * Log message template compiled once into a fixed sequence of segments.
+ * Rendering appends every segment straight into a thread-local {@link StringBuilder},
+ * so the only per-call allocation is the resulting String.
+ */
+public final class LogMessageTemplate {
+
+    private static final int PLACEHOLDER_SIZE_HINT = 32;
+    private static final int INITIAL_BUILDER_CAPACITY = 256;
+    private static final int MAX_REUSED_BUILDER_CAPACITY = 8 * 1024;
+
+    private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(Buffer::new);
+
+    private final String message;
+    private final Segment[] segments;
+    private final int sizeHint;
+    private final ValueRenderer valueRenderer;
+    private final int maxMessageLength;
+
+    LogMessageTemplate(String message, Segment[] segments, int sizeHint,
+                               ValueRenderer valueRenderer, int maxMessageLength) {
+        this.message = message;
+        this.segments = segments;
+        this.sizeHint = maxMessageLength < 0 ? sizeHint : Math.min(sizeHint, maxMessageLength + TRUNCATED.length());
+        this.valueRenderer = valueRenderer;
+        this.maxMessageLength = maxMessageLength;
+    }
+
+    public static LogMessageTemplate compile(String message) {
+        return compile(message, ValueRenderer.UNBOUNDED, -1);
+    }
+
+    /**
+     * @param maxMessageLength maximum length of the rendered message, negative for unlimited
+     */
+    public static LogMessageTemplate compile(String message, ValueRenderer valueRenderer, int maxMessageLength) {
+        List<Segment> segments = new ArrayList<>();
+        int sizeHint = 0;
+        Matcher matcher = PATTERN.matcher(message);
+        int previousMatchEnd = 0;
+        while (matcher.find()) {
+            if (matcher.start() > previousMatchEnd) {
+                segments.add(literal(message.substring(previousMatchEnd, matcher.start())));
+                sizeHint += matcher.start() - previousMatchEnd;
+            }
+
+            String placeholder = matcher.group();
+            if (PLACEHOLDER_METHOD_NAME.equals(placeholder)) {
+                segments.add(LogMessageTemplate::appendMethodName);
+            } else if (PLACEHOLDER_ARGUMENTS.equals(placeholder)) {
+                segments.add(LogMessageTemplate::appendArguments);
+            } else if (PLACEHOLDER_RETURN_VALUE.equals(placeholder)) {
+                segments.add(LogMessageTemplate::appendReturnValue);
+            } else if (PLACEHOLDER_INVOCATION_TIME.equals(placeholder)) {
+                segments.add(LogMessageTemplate::appendInvocationTime);
+            } else {
+                throw new IllegalArgumentException("Unknown placeholder [" + placeholder + "]");
+            }
+            sizeHint += PLACEHOLDER_SIZE_HINT;
+            previousMatchEnd = matcher.end();
+        }
+        if (message.length() > previousMatchEnd) {
+            segments.add(literal(message.substring(previousMatchEnd)));
+            sizeHint += message.length() - previousMatchEnd;
+        }
+
+        return new LogMessageTemplate(message, segments.toArray(new Segment[0]), sizeHint,
+                valueRenderer, maxMessageLength);
+    }
+
+    public String render(TraceData data) {
+        Buffer buffer = BUFFER.get();
+        if (buffer.busy) {
+            //re-entrant call, e.g. toString() of an argument is itself @Logged
+            StringBuilder builder = new StringBuilder(sizeHint);
+            renderTo(builder, data);
+            return builder.toString();
+        }
+
+        buffer.busy = true;
+        StringBuilder builder = buffer.builder;
+        try {
+            builder.ensureCapacity(sizeHint);
+            renderTo(builder, data);
+            return builder.toString();
+        } finally {
+            if (builder.capacity() > MAX_REUSED_BUILDER_CAPACITY) {
+                buffer.builder = new StringBuilder(INITIAL_BUILDER_CAPACITY);
+            } else {
+                builder.setLength(0);
+            }
+            buffer.busy = false;
+        }
+    }
+
+    public void renderTo(StringBuilder builder, TraceData data) {
+        int end = maxMessageLength < 0 ? Integer.MAX_VALUE
+                : (int) Math.min(Integer.MAX_VALUE, (long) builder.length() + maxMessageLength);
+        for (Segment segment : segments) {
+            segment.appendTo(this, builder, data, end);
+            if (builder.length() >= end) {
+                truncate(builder, end);
+                return;
+            }
+        }
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    ValueRenderer getValueRenderer() {
+        return valueRenderer;
+    }
+
+    @Override
+    public String toString() {
+        return message;
+    }
+
+    private static Segment literal(String text) {
+        return (template, builder, data, end) -> builder.append(text);
+    }
+
+    private void appendMethodName(StringBuilder builder, TraceData data, int end) {
+        builder.append(data.method.getName());
+    }
+
+    void appendArguments(StringBuilder builder, TraceData data, int end) {
+        Object[] arguments = data.arguments;
+        if (arguments == null) {
+            return;
+        }
+        ArgumentMask argumentMask = data.argumentMask;
+        boolean first = true;
+        for (int i = 0; i < arguments.length && builder.length() < end; i++) {
+            if (argumentMask != null && argumentMask.isNotLogged(i)) {
+                continue;
+            }
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            String mask = argumentMask != null ? argumentMask.getMask(i) : null;
+            if (mask != null) {
+                builder.append(mask);
+            } else {
+                valueRenderer.append(builder, arguments[i], end);
+            }
+        }
+    }
+
+    private void appendReturnValue(StringBuilder builder, TraceData data, int end) {
+        if (data.method.getReturnType() == void.class) {
+            builder.append("void");
+        } else {
+            valueRenderer.append(builder, data.returnValue, end);
+        }
+    }
+
+    private void appendInvocationTime(StringBuilder builder, TraceData data, int end) {
+        builder.append(data.executionTime);
+    }
+
+    @FunctionalInterface
+    interface Segment {
+        void appendTo(LogMessageTemplate template, StringBuilder builder, TraceData data, int end);
+    }
+
+    private static final class Buffer {
+        private StringBuilder builder = new StringBuilder(INITIAL_BUILDER_CAPACITY);
+        private boolean busy;
+    }
+}
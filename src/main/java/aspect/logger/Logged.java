@@ -5,7 +5,49 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Marks a method, or all public methods of a class, to be logged by {@link CustomizableLoggedInterceptor}.
+ * Attributes left at their defaults inherit the class-level annotation and then
+ * {@link aspect.logger.properties.LoggedInterceptorProperties}; a method-level annotation wins over the class-level one.
+ * Effective settings are resolved once per method, not on every call.
+ */
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ElementType.METHOD, ElementType.TYPE})
 public @interface Logged {
+
+    boolean enabled() default true;
+
+    String enterMessage() default "";
+
+    LogLevel[] enterMessageLogLevel() default {};
+
+    String exitMessage() default "";
+
+    LogLevel[] exitMessageLogLevel() default {};
+
+    String exceptionMessage() default "";
+
+    LogLevel[] exceptionMessageLogLevel() default {};
+
+    /**
+     * Log one call out of this many. Exceptions are always logged.
+     */
+    int[] sampleEvery() default {};
+
+    /**
+     * Log this percentage of calls. Exceptions are always logged.
+     */
+    double[] samplePercentage() default {};
+
+    /**
+     * Log only calls taking at least this many milliseconds: enter is not logged and exit only for slow calls.
+     * A negative value turns the threshold off. Exceptions are always logged.
+     */
+    long[] slowCallThreshold() default {};
+
+    /**
+     * Count calls into a summary logged once per summary interval at the exit message log level
+     * instead of logging enter and exit of every call. Exceptions are always logged.
+     */
+    boolean[] summary() default {};
 }
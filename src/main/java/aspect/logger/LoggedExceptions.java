@@ -0,0 +1,46 @@
+package aspect.logger;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Remembers, per thread, the exceptions logged with their stack trace within the outermost logged call,
+ * so the frames they propagate through can recognize them. They are forgotten when the outermost call ends,
+ * so a later call throwing the same instance, e.g. a preallocated or cached exception, is logged in full again.
+ */
+final class LoggedExceptions {
+
+    private static final ThreadLocal<LoggedExceptions> CURRENT = ThreadLocal.withInitial(LoggedExceptions::new);
+
+    private final Set<Throwable> logged = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int depth;
+
+    private LoggedExceptions() {
+    }
+
+    static void enterFrame() {
+        CURRENT.get().depth++;
+    }
+
+    static void exitFrame() {
+        LoggedExceptions current = CURRENT.get();
+        if (current.depth > 0 && --current.depth == 0 && !current.logged.isEmpty()) {
+            current.logged.clear();
+        }
+    }
+
+    static boolean isLogged(Throwable throwable) {
+        return CURRENT.get().logged.contains(throwable);
+    }
+
+    /**
+     * Marks the exception within the current logged call only; outside of one there is no frame it propagates through.
+     */
+    static void markLogged(Throwable throwable) {
+        LoggedExceptions current = CURRENT.get();
+        if (current.depth > 0) {
+            current.logged.add(throwable);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package aspect.logger;
+
+import aspect.logger.aggregation.MethodSummary;
+import aspect.logger.async.AsyncResultHandler;
+import aspect.logger.backend.CommonsLogHandle;
+import aspect.logger.backend.LogBackend;
+import aspect.logger.backend.LogHandle;
+import aspect.logger.metrics.LatencyHistogram;
+import aspect.logger.sampling.Sampler;
+import org.apache.commons.logging.Log;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Everything the interceptor needs to log a call of one method, resolved once and cached.
+ */
+public final class LoggedMethod {
+
+    private final Method method;
+    private final Class<?> targetClass;
+    private final Log logger;
+    private final boolean enabled;
+    private final ArgumentMask argumentMask;
+    private final AsyncResultHandler asyncResultHandler;
+    private final Sampler sampler;
+    private final long slowCallThreshold;
+    private final LatencyHistogram latencyHistogram;
+
+    private final LogMessageTemplate enterMessageTemplate;
+    private final LogLevel enterMessageLogLevel;
+
+    private final LogMessageTemplate exitMessageTemplate;
+    private final LogLevel exitMessageLogLevel;
+
+    private final LogMessageTemplate exceptionMessageTemplate;
+    private final LogLevel exceptionMessageLogLevel;
+
+    private final LogHandle enterLogHandle;
+    private final LogHandle exitLogHandle;
+    private final LogHandle exceptionLogHandle;
+
+    private final MethodSummary summary;
+
+    public LoggedMethod(Method method, Class<?> targetClass, Log logger, boolean enabled,
+                        ArgumentMask argumentMask, AsyncResultHandler asyncResultHandler,
+                        Sampler sampler, long slowCallThreshold, LatencyHistogram latencyHistogram,
+                        LogMessageTemplate enterMessageTemplate, LogLevel enterMessageLogLevel,
+                        LogMessageTemplate exitMessageTemplate, LogLevel exitMessageLogLevel,
+                        LogMessageTemplate exceptionMessageTemplate, LogLevel exceptionMessageLogLevel) {
+        this.method = method;
+        this.targetClass = targetClass;
+        this.logger = logger;
+        this.enabled = enabled;
+        this.argumentMask = argumentMask;
+        this.asyncResultHandler = asyncResultHandler;
+        this.sampler = sampler;
+        this.slowCallThreshold = slowCallThreshold;
+        this.latencyHistogram = latencyHistogram;
+        this.enterMessageTemplate = enterMessageTemplate;
+        this.enterMessageLogLevel = enterMessageLogLevel;
+        this.exitMessageTemplate = exitMessageTemplate;
+        this.exitMessageLogLevel = exitMessageLogLevel;
+        this.exceptionMessageTemplate = exceptionMessageTemplate;
+        this.exceptionMessageLogLevel = exceptionMessageLogLevel;
+        this.enterLogHandle = new CommonsLogHandle(logger, enterMessageLogLevel);
+        this.exitLogHandle = new CommonsLogHandle(logger, exitMessageLogLevel);
+        this.exceptionLogHandle = new CommonsLogHandle(logger, exceptionMessageLogLevel);
+        this.summary = null;
+    }
+
+    private LoggedMethod(LoggedMethod source, Log logger,
+                         LogHandle enterLogHandle, LogHandle exitLogHandle, LogHandle exceptionLogHandle,
+                         MethodSummary summary) {
+        this.method = source.method;
+        this.targetClass = source.targetClass;
+        this.logger = logger;
+        this.enabled = source.enabled;
+        this.argumentMask = source.argumentMask;
+        this.asyncResultHandler = source.asyncResultHandler;
+        this.sampler = source.sampler;
+        this.slowCallThreshold = source.slowCallThreshold;
+        this.latencyHistogram = source.latencyHistogram;
+        this.enterMessageTemplate = source.enterMessageTemplate;
+        this.enterMessageLogLevel = source.enterMessageLogLevel;
+        this.exitMessageTemplate = source.exitMessageTemplate;
+        this.exitMessageLogLevel = source.exitMessageLogLevel;
+        this.exceptionMessageTemplate = source.exceptionMessageTemplate;
+        this.exceptionMessageLogLevel = source.exceptionMessageLogLevel;
+        this.enterLogHandle = enterLogHandle;
+        this.exitLogHandle = exitLogHandle;
+        this.exceptionLogHandle = exceptionLogHandle;
+        this.summary = summary;
+    }
+
+    /**
+     * @return this method logging through the given commons-logging logger
+     */
+    public LoggedMethod withLogger(Log logger) {
+        return new LoggedMethod(this, logger,
+                new CommonsLogHandle(logger, enterMessageLogLevel),
+                new CommonsLogHandle(logger, exitMessageLogLevel),
+                new CommonsLogHandle(logger, exceptionMessageLogLevel), summary);
+    }
+
+    /**
+     * @return this method logging straight to the backend logger of the given name
+     */
+    public LoggedMethod withLogBackend(LogBackend logBackend, String loggerName) {
+        return new LoggedMethod(this, logger,
+                logBackend.handle(loggerName, enterMessageLogLevel),
+                logBackend.handle(loggerName, exitMessageLogLevel),
+                logBackend.handle(loggerName, exceptionMessageLogLevel), summary);
+    }
+
+    /**
+     * @return this method counting its calls into the given summary instead of logging them, exceptions aside
+     */
+    public LoggedMethod withSummary(MethodSummary summary) {
+        return new LoggedMethod(this, logger, enterLogHandle, exitLogHandle, exceptionLogHandle, summary);
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public Class<?> getTargetClass() {
+        return targetClass;
+    }
+
+    public Log getLogger() {
+        return logger;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public ArgumentMask getArgumentMask() {
+        return argumentMask;
+    }
+
+    /**
+     * @return handler of the asynchronous return type, null if the method is synchronous
+     */
+    public AsyncResultHandler getAsyncResultHandler() {
+        return asyncResultHandler;
+    }
+
+    /**
+     * @return true if this call is to be logged, exceptions aside
+     */
+    public boolean sample() {
+        return summary == null && (sampler == null || sampler.sample());
+    }
+
+    /**
+     * @return minimum duration in milliseconds of a call to be logged, negative if every call is logged
+     */
+    public long getSlowCallThreshold() {
+        return slowCallThreshold;
+    }
+
+    /**
+     * @return true if a call of this duration is to be logged on exit
+     */
+    public boolean isSlowCall(long executionTimeNanos) {
+        return slowCallThreshold < 0 || TimeUnit.NANOSECONDS.toMillis(executionTimeNanos) >= slowCallThreshold;
+    }
+
+    /**
+     * @return histogram recording every call, logged or not, null if latencies are not recorded
+     */
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    /**
+     * @return summary the calls are counted into instead of being logged, null if every call is logged
+     */
+    public MethodSummary getSummary() {
+        return summary;
+    }
+
+    public void recordLatency(long executionTimeNanos, boolean error) {
+        if (latencyHistogram != null) {
+            latencyHistogram.record(executionTimeNanos, error);
+        }
+        if (summary != null) {
+            summary.record(executionTimeNanos, error);
+        }
+    }
+
+    public LogMessageTemplate getEnterMessageTemplate() {
+        return enterMessageTemplate;
+    }
+
+    public LogLevel getEnterMessageLogLevel() {
+        return enterMessageLogLevel;
+    }
+
+    public LogMessageTemplate getExitMessageTemplate() {
+        return exitMessageTemplate;
+    }
+
+    public LogLevel getExitMessageLogLevel() {
+        return exitMessageLogLevel;
+    }
+
+    public LogMessageTemplate getExceptionMessageTemplate() {
+        return exceptionMessageTemplate;
+    }
+
+    public LogLevel getExceptionMessageLogLevel() {
+        return exceptionMessageLogLevel;
+    }
+
+    public LogHandle getEnterLogHandle() {
+        return enterLogHandle;
+    }
+
+    public LogHandle getExitLogHandle() {
+        return exitLogHandle;
+    }
+
+    public LogHandle getExceptionLogHandle() {
+        return exceptionLogHandle;
+    }
+}
@@ -0,0 +1,136 @@
+package aspect.logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Settings changed at runtime for a method, a class or a package, see {@link CustomizableLoggedInterceptor#setOverride}.
+ * Null attributes are left as configured by {@link Logged} and the interceptor properties; set ones win over both.
+ */
+public final class LoggedOverride {
+
+    private final Boolean enabled;
+    private final String enterMessage;
+    private final LogLevel enterMessageLogLevel;
+    private final String exitMessage;
+    private final LogLevel exitMessageLogLevel;
+    private final String exceptionMessage;
+    private final LogLevel exceptionMessageLogLevel;
+    private final Integer sampleEvery;
+    private final Double samplePercentage;
+    private final Long slowCallThreshold;
+
+    public LoggedOverride(Boolean enabled,
+                          String enterMessage, LogLevel enterMessageLogLevel,
+                          String exitMessage, LogLevel exitMessageLogLevel,
+                          String exceptionMessage, LogLevel exceptionMessageLogLevel,
+                          Integer sampleEvery, Double samplePercentage, Long slowCallThreshold) {
+        this.enabled = enabled;
+        this.enterMessage = enterMessage;
+        this.enterMessageLogLevel = enterMessageLogLevel;
+        this.exitMessage = exitMessage;
+        this.exitMessageLogLevel = exitMessageLogLevel;
+        this.exceptionMessage = exceptionMessage;
+        this.exceptionMessageLogLevel = exceptionMessageLogLevel;
+        this.sampleEvery = sampleEvery;
+        this.samplePercentage = samplePercentage;
+        this.slowCallThreshold = slowCallThreshold;
+    }
+
+    /**
+     * @return this override with attributes it leaves unset taken from the less specific one;
+     * sampleEvery and samplePercentage go together, as only one of them may be set
+     */
+    public LoggedOverride orElse(LoggedOverride lessSpecific) {
+        if (lessSpecific == null) {
+            return this;
+        }
+        LoggedOverride sampling = sampleEvery != null || samplePercentage != null ? this : lessSpecific;
+        return new LoggedOverride(
+                first(LoggedOverride::getEnabled, lessSpecific),
+                first(LoggedOverride::getEnterMessage, lessSpecific),
+                first(LoggedOverride::getEnterMessageLogLevel, lessSpecific),
+                first(LoggedOverride::getExitMessage, lessSpecific),
+                first(LoggedOverride::getExitMessageLogLevel, lessSpecific),
+                first(LoggedOverride::getExceptionMessage, lessSpecific),
+                first(LoggedOverride::getExceptionMessageLogLevel, lessSpecific),
+                sampling.sampleEvery,
+                sampling.samplePercentage,
+                first(LoggedOverride::getSlowCallThreshold, lessSpecific));
+    }
+
+    private <T> T first(Function<LoggedOverride, T> attribute, LoggedOverride lessSpecific) {
+        T value = attribute.apply(this);
+        return value != null ? value : attribute.apply(lessSpecific);
+    }
+
+    public Boolean getEnabled() {
+        return enabled;
+    }
+
+    public String getEnterMessage() {
+        return enterMessage;
+    }
+
+    public LogLevel getEnterMessageLogLevel() {
+        return enterMessageLogLevel;
+    }
+
+    public String getExitMessage() {
+        return exitMessage;
+    }
+
+    public LogLevel getExitMessageLogLevel() {
+        return exitMessageLogLevel;
+    }
+
+    public String getExceptionMessage() {
+        return exceptionMessage;
+    }
+
+    public LogLevel getExceptionMessageLogLevel() {
+        return exceptionMessageLogLevel;
+    }
+
+    public Integer getSampleEvery() {
+        return sampleEvery;
+    }
+
+    public Double getSamplePercentage() {
+        return samplePercentage;
+    }
+
+    public Long getSlowCallThreshold() {
+        return slowCallThreshold;
+    }
+
+    /**
+     * @return the attributes that are set
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        putIfSet(map, "enabled", enabled);
+        putIfSet(map, "enterMessage", enterMessage);
+        putIfSet(map, "enterMessageLogLevel", enterMessageLogLevel);
+        putIfSet(map, "exitMessage", exitMessage);
+        putIfSet(map, "exitMessageLogLevel", exitMessageLogLevel);
+        putIfSet(map, "exceptionMessage", exceptionMessage);
+        putIfSet(map, "exceptionMessageLogLevel", exceptionMessageLogLevel);
+        putIfSet(map, "sampleEvery", sampleEvery);
+        putIfSet(map, "samplePercentage", samplePercentage);
+        putIfSet(map, "slowCallThreshold", slowCallThreshold);
+        return map;
+    }
+
+    private static void putIfSet(Map<String, Object> map, String name, Object value) {
+        if (value != null) {
+            map.put(name, value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -0,0 +1,114 @@
+package aspect.logger;
+
+import aspect.logger.agent.LoggedAgent;
+import aspect.logger.agent.LoggedAgentRuntime;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Matches what the AspectJ expression
+ * {@code (execution(public * *(..)) && !execution(* java.lang.Object.*(..)) && within(@aspect.logger.Logged *)) || @annotation(aspect.logger.Logged)}
+ * matches, using plain reflection instead of the AspectJ weaver.
+ * Classes with no {@link Logged} on them or on any of their methods are rejected with one cached lookup,
+ * so most beans are never matched method by method; method results are cached as well.
+ * Both are cached per class in a {@link ClassValue}, which does not keep classes of redeployed applications
+ * from being unloaded.
+ */
+public class LoggedPointcut extends StaticMethodMatcherPointcut {
+
+    private static final Set<String> OBJECT_METHOD_NAMES = Arrays.stream(Object.class.getDeclaredMethods())
+            .map(Method::getName)
+            .collect(Collectors.toSet());
+
+    private final ClassValue<LoggedClass> loggedClasses = new ClassValue<LoggedClass>() {
+        @Override
+        protected LoggedClass computeValue(Class<?> type) {
+            return new LoggedClass(hasLoggedAnnotation(ClassUtils.getUserClass(type)));
+        }
+    };
+
+    public LoggedPointcut() {
+        setClassFilter(this::matchesClass);
+    }
+
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+        Class<?> type = targetClass != null ? targetClass : method.getDeclaringClass();
+        ConcurrentMap<Method, Boolean> methods = loggedClasses.get(type).methods;
+        Boolean matches = methods.get(method);
+        if (matches == null) {
+            matches = matchesMethod(method, targetClass);
+            methods.putIfAbsent(method, matches);
+        }
+        return matches;
+    }
+
+    private boolean matchesClass(Class<?> clazz) {
+        return loggedClasses.get(clazz).logged;
+    }
+
+    private static boolean hasLoggedAnnotation(Class<?> clazz) {
+        if (clazz.isInterface() || clazz.getName().startsWith("java.")) {
+            return false;
+        }
+        for (Class<?> type = clazz; type != null && type != Object.class; type = type.getSuperclass()) {
+            if (type.isAnnotationPresent(Logged.class)) {
+                return true;
+            }
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(Logged.class)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesMethod(Method method, Class<?> targetClass) {
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        if (LoggedAgent.isInstalled() && LoggedAgentRuntime.isInstrumented(specificMethod)) {
+            //already logged by the instrumented code
+            return false;
+        }
+        if (specificMethod.isAnnotationPresent(Logged.class)) {
+            return true;
+        }
+        return Modifier.isPublic(specificMethod.getModifiers())
+                && specificMethod.getDeclaringClass().isAnnotationPresent(Logged.class)
+                && !isObjectMethod(specificMethod);
+    }
+
+    private static final class LoggedClass {
+        private final boolean logged;
+        //results of the methods invoked on the class, which are its own or inherited ones
+        private final ConcurrentMap<Method, Boolean> methods = new ConcurrentHashMap<>();
+
+        private LoggedClass(boolean logged) {
+            this.logged = logged;
+        }
+    }
+
+    /**
+     * @return true for methods declared by {@link Object} and their overrides, e.g. {@code toString()}
+     */
+    private static boolean isObjectMethod(Method method) {
+        if (!OBJECT_METHOD_NAMES.contains(method.getName())) {
+            return false;
+        }
+        try {
+            Object.class.getDeclaredMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package aspect.logger;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Replaces the parameter value with {@link #value()} in {@link CustomizableLoggedInterceptor#PLACEHOLDER_ARGUMENTS},
+ * its {@code toString()} is never called.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Masked {
+
+    String value() default "****";
+}
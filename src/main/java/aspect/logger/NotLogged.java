@@ -0,0 +1,15 @@
+package aspect.logger;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Leaves the parameter out of {@link CustomizableLoggedInterceptor#PLACEHOLDER_ARGUMENTS},
+ * its {@code toString()} is never called.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface NotLogged {
+}
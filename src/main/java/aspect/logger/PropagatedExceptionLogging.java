@@ -0,0 +1,19 @@
+package aspect.logger;
+
+/**
+ * How an exception already logged by a nested logged call on the same thread is logged again by the outer calls it propagates through.
+ */
+public enum PropagatedExceptionLogging {
+    /**
+     * Log the exception message with the stack trace at every level.
+     */
+    FULL,
+    /**
+     * Log a short line naming the exception type and message, without the stack trace.
+     */
+    MESSAGE_ONLY,
+    /**
+     * Do not log it again.
+     */
+    NONE
+}
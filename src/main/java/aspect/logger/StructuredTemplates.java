@@ -0,0 +1,173 @@
+package aspect.logger;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds {@link LogMessageTemplate}s writing {@link LogFormat#JSON} or {@link LogFormat#KEY_VALUE} messages.
+ * Field names and separators are encoded once into literal segments, so rendering only appends values,
+ * each escaped in place in a single pass over the characters it added.
+ * The message length limit is not applied, it would break the structure; value limits are.
+ */
+final class StructuredTemplates {
+
+    static final String EVENT_ENTER = "enter";
+    static final String EVENT_EXIT = "exit";
+    static final String EVENT_EXCEPTION = "exception";
+    static final String EVENT_CANCEL = "cancel";
+
+    private StructuredTemplates() {
+    }
+
+    static LogMessageTemplate compile(LogFormat format, String event, boolean returnValue, boolean duration,
+                                      ValueRenderer valueRenderer) {
+        boolean json = format == LogFormat.JSON;
+        List<LogMessageTemplate.Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        literal.append(json ? "{\"event\":\"" : "event=").append(event).append(json ? "\",\"class\":\"" : " class=");
+        segments.add(literal(literal));
+        segments.add((template, builder, data, end) -> builder.append(data.targetClass.getName()));
+        literal.append(json ? "\",\"method\":\"" : " method=");
+        segments.add(literal(literal));
+        segments.add((template, builder, data, end) -> builder.append(data.method.getName()));
+        literal.append(json ? "\",\"arguments\":[" : " arguments=\"");
+        segments.add(literal(literal));
+        segments.add(json ? StructuredTemplates::appendJsonArguments : StructuredTemplates::appendKeyValueArguments);
+        literal.append(json ? "]" : "\"");
+        if (returnValue) {
+            segments.add(literal(literal));
+            String name = json ? ",\"returnValue\":" : " returnValue=";
+            segments.add(json
+                    ? (template, builder, data, end) -> appendReturnValue(template, builder, data, name, true)
+                    : (template, builder, data, end) -> appendReturnValue(template, builder, data, name, false));
+        }
+        if (duration) {
+            literal.append(json ? ",\"durationMs\":" : " durationMs=");
+            segments.add(literal(literal));
+            segments.add((template, builder, data, end) -> builder.append(data.executionTime));
+        }
+        if (json) {
+            literal.append('}');
+        }
+        if (literal.length() > 0) {
+            segments.add(literal(literal));
+        }
+
+        return new LogMessageTemplate(format + " " + event, segments.toArray(new LogMessageTemplate.Segment[0]),
+                128, valueRenderer, -1);
+    }
+
+    private static LogMessageTemplate.Segment literal(StringBuilder literal) {
+        String text = literal.toString();
+        literal.setLength(0);
+        return (template, builder, data, end) -> builder.append(text);
+    }
+
+    private static void appendJsonArguments(LogMessageTemplate template, StringBuilder builder, TraceData data, int end) {
+        Object[] arguments = data.arguments;
+        if (arguments == null) {
+            return;
+        }
+        ArgumentMask argumentMask = data.argumentMask;
+        boolean first = true;
+        for (int i = 0; i < arguments.length; i++) {
+            if (argumentMask != null && argumentMask.isNotLogged(i)) {
+                continue;
+            }
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            String mask = argumentMask != null ? argumentMask.getMask(i) : null;
+            appendValue(template, builder, mask != null ? mask : arguments[i], true);
+        }
+    }
+
+    private static void appendKeyValueArguments(LogMessageTemplate template, StringBuilder builder, TraceData data, int end) {
+        int start = builder.length();
+        template.appendArguments(builder, data, Integer.MAX_VALUE);
+        escapeFrom(builder, start);
+    }
+
+    private static void appendReturnValue(LogMessageTemplate template, StringBuilder builder, TraceData data,
+                                          String name, boolean json) {
+        if (data.method.getReturnType() == void.class) {
+            return;
+        }
+        builder.append(name);
+        appendValue(template, builder, data.returnValue, json);
+    }
+
+    private static void appendValue(LogMessageTemplate template, StringBuilder builder, Object value, boolean json) {
+        if (value == null) {
+            builder.append("null");
+        } else if (json && isJsonLiteral(value)) {
+            builder.append(value);
+        } else {
+            builder.append('"');
+            int start = builder.length();
+            template.getValueRenderer().append(builder, value, Integer.MAX_VALUE);
+            escapeFrom(builder, start);
+            builder.append('"');
+        }
+    }
+
+    private static boolean isJsonLiteral(Object value) {
+        if (value instanceof Double) {
+            return Double.isFinite((Double) value);
+        } else if (value instanceof Float) {
+            return Float.isFinite((Float) value);
+        }
+        return value instanceof Integer || value instanceof Long || value instanceof Boolean
+                || value instanceof Short || value instanceof Byte || value instanceof BigInteger;
+    }
+
+    /**
+     * Escapes characters appended after {@code start}. Values rarely need escaping,
+     * so the common case is a single scan with no copying.
+     */
+    static void escapeFrom(StringBuilder builder, int start) {
+        for (int i = start; i < builder.length(); i++) {
+            if (needsEscape(builder.charAt(i))) {
+                String rest = builder.substring(i);
+                builder.setLength(i);
+                for (int j = 0; j < rest.length(); j++) {
+                    appendEscaped(builder, rest.charAt(j));
+                }
+                return;
+            }
+        }
+    }
+
+    private static boolean needsEscape(char c) {
+        return c == '"' || c == '\\' || c < 0x20;
+    }
+
+    private static void appendEscaped(StringBuilder builder, char c) {
+        switch (c) {
+            case '"':
+                builder.append("\\\"");
+                break;
+            case '\\':
+                builder.append("\\\\");
+                break;
+            case '\n':
+                builder.append("\\n");
+                break;
+            case '\r':
+                builder.append("\\r");
+                break;
+            case '\t':
+                builder.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    builder.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                } else {
+                    builder.append(c);
+                }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package aspect.logger;
+
+import java.lang.reflect.Method;
+
+public class TraceData {
+
+    public final Class<?> targetClass;
+    public final Method method;
+    public final Object[] arguments;
+    public final ArgumentMask argumentMask;
+    public final Object returnValue;
+    public final long executionTime;
+
+    public TraceData(Method method, Object[] arguments, Object returnValue, long executionTime) {
+        this(method, arguments, null, returnValue, executionTime);
+    }
+
+    public TraceData(Method method, Object[] arguments, ArgumentMask argumentMask,
+                     Object returnValue, long executionTime) {
+        this(method.getDeclaringClass(), method, arguments, argumentMask, returnValue, executionTime);
+    }
+
+    public TraceData(Class<?> targetClass, Method method, Object[] arguments, ArgumentMask argumentMask,
+                     Object returnValue, long executionTime) {
+        this.targetClass = targetClass;
+        this.method = method;
+        this.arguments = arguments;
+        this.argumentMask = argumentMask;
+        this.returnValue = returnValue;
+        this.executionTime = executionTime;
+    }
+}
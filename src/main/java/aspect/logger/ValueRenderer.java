@@ -0,0 +1,299 @@
+package aspect.logger;
+
+import org.springframework.util.Assert;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Appends argument and return values to a log message within configured limits.
+ * Arrays, collections, maps and {@link Optional}s are walked element by element so rendering stops as soon as
+ * a limit is reached, instead of building the whole {@code toString()} and cutting it afterwards; collections and maps
+ * with a {@code toString()} of their own keep it. A {@code byte[]} is only rendered as its length unless a limit is set.
+ * Values of other types go through the first matching {@link ArgumentRenderer}, or else their {@code toString()}.
+ * The renderer of each runtime class is looked up once and cached in a {@link ClassValue},
+ * which does not keep classes of redeployed applications from being unloaded.
+ * A negative limit means unlimited; with no limits values with no renderer are appended exactly as
+ * {@link StringBuilder#append(Object)} does.
+ */
+public class ValueRenderer {
+
+    public static final String TRUNCATED = "...";
+
+    public static final ValueRenderer UNBOUNDED = new ValueRenderer(-1, -1);
+
+    private static final ThreadLocal<Set<Object>> RENDERED_CONTAINERS =
+            ThreadLocal.withInitial(() -> Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    private static final TypeRenderer TO_STRING = (renderer, builder, value, end) ->
+            appendText(builder, value.toString(), end);
+
+    private final int maxValueLength;
+    private final int maxCollectionElements;
+    private final List<ArgumentRenderer<?>> argumentRenderers;
+    private final ClassValue<TypeRenderer> renderersByClass = new ClassValue<TypeRenderer>() {
+        @Override
+        protected TypeRenderer computeValue(Class<?> type) {
+            return resolveRenderer(type);
+        }
+    };
+
+    public ValueRenderer(int maxValueLength, int maxCollectionElements) {
+        this(maxValueLength, maxCollectionElements, Collections.emptyList());
+    }
+
+    public ValueRenderer(int maxValueLength, int maxCollectionElements, List<? extends ArgumentRenderer<?>> argumentRenderers) {
+        Assert.notNull(argumentRenderers, "Argument renderers must not be null");
+        this.maxValueLength = maxValueLength;
+        this.maxCollectionElements = maxCollectionElements;
+        this.argumentRenderers = new ArrayList<>(argumentRenderers);
+    }
+
+    public boolean isBounded() {
+        return maxValueLength >= 0 || maxCollectionElements >= 0;
+    }
+
+    /**
+     * @param end builder length at which the whole message is cut, {@link Integer#MAX_VALUE} if unlimited
+     */
+    public void append(StringBuilder builder, Object value, int end) {
+        if (!isBounded() && end == Integer.MAX_VALUE
+                && (value == null || value instanceof CharSequence || rendererFor(value.getClass()) == TO_STRING)) {
+            builder.append(value);
+            return;
+        }
+        int valueEnd = maxValueLength < 0 ? end : (int) Math.min(end, (long) builder.length() + maxValueLength);
+        appendValue(builder, value, valueEnd);
+    }
+
+    protected void appendValue(StringBuilder builder, Object value, int end) {
+        if (value == null) {
+            appendText(builder, "null", end);
+        } else if (value instanceof CharSequence) {
+            appendText(builder, (CharSequence) value, end);
+        } else {
+            rendererFor(value.getClass()).append(this, builder, value, end);
+        }
+    }
+
+    private TypeRenderer rendererFor(Class<?> type) {
+        return renderersByClass.get(type);
+    }
+
+    private TypeRenderer resolveRenderer(Class<?> type) {
+        for (ArgumentRenderer<?> argumentRenderer : argumentRenderers) {
+            if (argumentRenderer.getType().isAssignableFrom(type)) {
+                return custom(argumentRenderer);
+            }
+        }
+        if (type == byte[].class && !isBounded()) {
+            //a payload is only rendered byte by byte when a limit keeps it short
+            return ValueRenderer::appendByteCount;
+        } else if (type.isArray()) {
+            return type.getComponentType().isPrimitive() ? ValueRenderer::appendPrimitiveArray : ValueRenderer::appendArray;
+        } else if (overridesToString(type)) {
+            return TO_STRING;
+        } else if (Collection.class.isAssignableFrom(type)) {
+            return ValueRenderer::appendCollection;
+        } else if (Map.class.isAssignableFrom(type)) {
+            return ValueRenderer::appendMap;
+        } else if (Map.Entry.class.isAssignableFrom(type)) {
+            return ValueRenderer::appendEntry;
+        } else if (type == Optional.class) {
+            return ValueRenderer::appendOptional;
+        }
+        return TO_STRING;
+    }
+
+    /**
+     * @return true if the type has a {@code toString()} of its own instead of the one of the JDK class it extends
+     */
+    private static boolean overridesToString(Class<?> type) {
+        try {
+            return !type.getMethod("toString").getDeclaringClass().getName().startsWith("java.");
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TypeRenderer custom(ArgumentRenderer<?> argumentRenderer) {
+        ArgumentRenderer<Object> renderer = (ArgumentRenderer<Object>) argumentRenderer;
+        return (valueRenderer, builder, value, end) -> {
+            renderer.render(value, builder);
+            if (builder.length() > end) {
+                truncate(builder, end);
+            }
+        };
+    }
+
+    private void appendCollection(StringBuilder builder, Object value, int end) {
+        Collection<?> collection = (Collection<?>) value;
+        appendElements(builder, collection, collection.iterator(), collection.size(), '[', ']', end);
+    }
+
+    private void appendMap(StringBuilder builder, Object value, int end) {
+        Map<?, ?> map = (Map<?, ?>) value;
+        appendElements(builder, map, map.entrySet().iterator(), map.size(), '{', '}', end);
+    }
+
+    private void appendEntry(StringBuilder builder, Object value, int end) {
+        Map.Entry<?, ?> entry = (Map.Entry<?, ?>) value;
+        appendValue(builder, entry.getKey(), end);
+        if (appendChar(builder, '=', end)) {
+            appendValue(builder, entry.getValue(), end);
+        }
+    }
+
+    private void appendOptional(StringBuilder builder, Object value, int end) {
+        Optional<?> optional = (Optional<?>) value;
+        if (!optional.isPresent()) {
+            appendText(builder, "Optional.empty", end);
+        } else if (appendText(builder, "Optional[", end)) {
+            appendValue(builder, optional.get(), end);
+            if (builder.length() <= end) {
+                appendChar(builder, ']', end);
+            }
+        }
+    }
+
+    /**
+     * Appends the elements of a collection, map or array; one that contains itself, directly or through its elements,
+     * is marked as {@link java.util.AbstractCollection#toString()} does instead of being walked again.
+     */
+    private void appendElements(StringBuilder builder, Object container, Iterator<?> elements, int size,
+                                char open, char close, int end) {
+        Set<Object> containers = RENDERED_CONTAINERS.get();
+        if (!containers.add(container)) {
+            appendText(builder, container instanceof Map ? "(this Map)" : "(this Collection)", end);
+            return;
+        }
+        try {
+            if (!appendChar(builder, open, end)) {
+                return;
+            }
+            for (int i = 0; elements.hasNext(); i++) {
+                if (i > 0 && !appendText(builder, ", ", end)) {
+                    return;
+                }
+                if (maxCollectionElements >= 0 && i >= maxCollectionElements) {
+                    appendMore(builder, size - i, end);
+                    break;
+                }
+                appendValue(builder, elements.next(), end);
+                if (builder.length() > end) {
+                    //already cut and marked by the element
+                    return;
+                }
+            }
+            appendChar(builder, close, end);
+        } finally {
+            containers.remove(container);
+        }
+    }
+
+    private void appendArray(StringBuilder builder, Object array, int end) {
+        Object[] elements = (Object[]) array;
+        appendElements(builder, array, Arrays.asList(elements).iterator(), elements.length, '[', ']', end);
+    }
+
+    private void appendByteCount(StringBuilder builder, Object array, int end) {
+        if (appendText(builder, "byte[", end) && appendText(builder, Integer.toString(((byte[]) array).length), end)) {
+            appendChar(builder, ']', end);
+        }
+    }
+
+    private void appendPrimitiveArray(StringBuilder builder, Object array, int end) {
+        int length = Array.getLength(array);
+        if (!appendChar(builder, '[', end)) {
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            if (i > 0 && !appendText(builder, ", ", end)) {
+                return;
+            }
+            if (maxCollectionElements >= 0 && i >= maxCollectionElements) {
+                appendMore(builder, length - i, end);
+                break;
+            }
+            appendPrimitive(builder, array, i);
+            if (builder.length() >= end) {
+                truncate(builder, end);
+                return;
+            }
+        }
+        appendChar(builder, ']', end);
+    }
+
+    private static void appendPrimitive(StringBuilder builder, Object array, int i) {
+        if (array instanceof int[]) {
+            builder.append(((int[]) array)[i]);
+        } else if (array instanceof long[]) {
+            builder.append(((long[]) array)[i]);
+        } else if (array instanceof char[]) {
+            builder.append(((char[]) array)[i]);
+        } else if (array instanceof double[]) {
+            builder.append(((double[]) array)[i]);
+        } else if (array instanceof float[]) {
+            builder.append(((float[]) array)[i]);
+        } else if (array instanceof byte[]) {
+            builder.append(((byte[]) array)[i]);
+        } else if (array instanceof short[]) {
+            builder.append(((short[]) array)[i]);
+        } else {
+            builder.append(((boolean[]) array)[i]);
+        }
+    }
+
+    private static void appendMore(StringBuilder builder, int remaining, int end) {
+        if (appendText(builder, TRUNCATED, end)) {
+            appendText(builder, " (" + remaining + " more)", end);
+        }
+    }
+
+    private static boolean appendChar(StringBuilder builder, char c, int end) {
+        if (builder.length() >= end) {
+            truncate(builder, end);
+            return false;
+        }
+        builder.append(c);
+        return true;
+    }
+
+    /**
+     * @return false if the text was cut at {@code end}
+     */
+    protected static boolean appendText(StringBuilder builder, CharSequence text, int end) {
+        int room = end - builder.length();
+        if (text.length() <= room) {
+            builder.append(text);
+            return true;
+        }
+        if (room > 0) {
+            builder.append(text, 0, room);
+        }
+        truncate(builder, end);
+        return false;
+    }
+
+    static void truncate(StringBuilder builder, int end) {
+        if (builder.length() > end) {
+            builder.setLength(end);
+        }
+        builder.append(TRUNCATED);
+    }
+
+    @FunctionalInterface
+    private interface TypeRenderer {
+        void append(ValueRenderer renderer, StringBuilder builder, Object value, int end);
+    }
+}
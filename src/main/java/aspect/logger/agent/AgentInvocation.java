@@ -0,0 +1,52 @@
+package aspect.logger.agent;
+
+import aspect.logger.LoggedMethod;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+
+/**
+ * Call of an instrumented method as seen by the interceptor. The instrumented code runs the method itself,
+ * so the invocation cannot be proceeded; it only carries the call from enter to exit.
+ */
+final class AgentInvocation implements MethodInvocation {
+
+    private final Method method;
+    private final Object target;
+    private final Object[] arguments;
+
+    LoggedMethod loggedMethod;
+    boolean sampled;
+
+    AgentInvocation(Method method, Object target, Object[] arguments) {
+        this.method = method;
+        this.target = target;
+        this.arguments = arguments;
+    }
+
+    @Override
+    public Method getMethod() {
+        return method;
+    }
+
+    @Override
+    public Object[] getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public Object proceed() {
+        throw new UnsupportedOperationException("Instrumented method [" + method + "] is run by its caller");
+    }
+
+    @Override
+    public Object getThis() {
+        return target;
+    }
+
+    @Override
+    public AccessibleObject getStaticPart() {
+        return method;
+    }
+}
@@ -0,0 +1,62 @@
+package aspect.logger.agent;
+
+import aspect.logger.CustomizableLoggedInterceptor;
+import aspect.logger.LoggedMethod;
+import aspect.logger.properties.LoggedInterceptorProperties;
+
+import java.lang.reflect.Method;
+
+/**
+ * {@link CustomizableLoggedInterceptor} driven by methods instrumented by {@link LoggedAgent} instead of AOP proxies.
+ * It can still be used as a Spring AOP advice for beans the agent did not instrument.
+ */
+public class AgentLoggedInterceptor extends CustomizableLoggedInterceptor {
+
+    public AgentLoggedInterceptor(LoggedInterceptorProperties properties) {
+        super(properties);
+    }
+
+    /**
+     * Checked before the arguments are boxed and the call is built, so a method nobody listens to costs neither.
+     *
+     * @return true if calls of the method on the target are logged or recorded
+     */
+    boolean isLogged(Method method, Object target) {
+        return isObserved(getLoggedMethod(method, getTargetClassForLogging(target, method)));
+    }
+
+    /**
+     * @return the call to pass to {@link #exit} or {@link #exception}, null if the method is not logged
+     */
+    AgentInvocation enter(Method method, Object target, Object[] arguments) {
+        LoggedMethod loggedMethod = getLoggedMethod(method, getTargetClassForLogging(target, method));
+        if (!loggedMethod.isEnabled()) {
+            return null;
+        }
+        AgentInvocation invocation = new AgentInvocation(method, target, arguments);
+        invocation.loggedMethod = loggedMethod;
+        long startTime = System.nanoTime();
+        try {
+            invocation.sampled = beforeInvocation(invocation, loggedMethod);
+        } catch (RuntimeException | Error e) {
+            //the instrumented method is not called, end the call as a proxy would
+            afterThrowing(invocation, loggedMethod, e, startTime);
+            throw e;
+        }
+        return invocation;
+    }
+
+    Object exit(AgentInvocation invocation, Object returnValue, long startTime) {
+        return afterReturning(invocation, invocation.loggedMethod, returnValue, startTime, invocation.sampled);
+    }
+
+    void exception(AgentInvocation invocation, Throwable throwable, long startTime) {
+        afterThrowing(invocation, invocation.loggedMethod, throwable, startTime);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        LoggedAgentRuntime.resetInterceptor(this);
+        super.destroy();
+    }
+}
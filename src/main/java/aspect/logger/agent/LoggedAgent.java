@@ -0,0 +1,60 @@
+package aspect.logger.agent;
+
+import aspect.logger.properties.LoggedInterceptorProperties;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.util.StringUtils;
+
+import java.lang.instrument.Instrumentation;
+
+/**
+ * Java agent logging {@link aspect.logger.Logged} methods by instrumenting them as their classes are loaded,
+ * without Spring AOP proxies: {@code -javaagent:aspect-logger.jar=sampleEvery=10,exitMessageLogLevel=INFO}.
+ * Options are {@link LoggedInterceptorProperties} separated by commas; in a Spring Boot application
+ * the {@code logging.interceptor} properties apply instead. The agent classes are loaded by the system class loader,
+ * so aspect-logger, spring-core, spring-aop and commons-logging have to be on the application class path.
+ */
+public final class LoggedAgent {
+
+    private static volatile boolean installed;
+
+    private LoggedAgent() {
+    }
+
+    public static void premain(String options, Instrumentation instrumentation) {
+        install(options, instrumentation);
+    }
+
+    public static void agentmain(String options, Instrumentation instrumentation) {
+        install(options, instrumentation);
+    }
+
+    private static synchronized void install(String options, Instrumentation instrumentation) {
+        if (installed) {
+            return;
+        }
+        LoggedAgentRuntime.setInterceptor(new AgentLoggedInterceptor(parseOptions(options)));
+        instrumentation.addTransformer(new LoggedClassTransformer());
+        installed = true;
+    }
+
+    /**
+     * @return true if classes loaded from now on are instrumented
+     */
+    public static boolean isInstalled() {
+        return installed;
+    }
+
+    static LoggedInterceptorProperties parseOptions(String options) {
+        LoggedInterceptorProperties properties = new LoggedInterceptorProperties();
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(properties);
+        for (String option : StringUtils.tokenizeToStringArray(options, ",")) {
+            String[] nameAndValue = StringUtils.split(option, "=");
+            if (nameAndValue == null) {
+                throw new IllegalArgumentException("Agent option [" + option + "] is not name=value");
+            }
+            wrapper.setPropertyValue(nameAndValue[0].trim(), nameAndValue[1].trim());
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,159 @@
+package aspect.logger.agent;
+
+import aspect.logger.properties.LoggedInterceptorProperties;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.asm.Type;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Entry points called by methods instrumented by {@link LoggedAgent}.
+ * Every instrumented method is registered under an id when its class is transformed and resolved to a
+ * {@link Method} on its first call; the calls are then logged by the current {@link AgentLoggedInterceptor}.
+ */
+public final class LoggedAgentRuntime {
+
+    private static final Log LOGGER = LogFactory.getLog(LoggedAgentRuntime.class);
+
+    private static volatile InstrumentedMethod[] methods = new InstrumentedMethod[64];
+    private static int methodCount;
+
+    private static volatile AgentLoggedInterceptor interceptor;
+
+    private LoggedAgentRuntime() {
+    }
+
+    /**
+     * Logs instrumented methods with the given interceptor, e.g. the one configured by Spring.
+     */
+    public static void setInterceptor(AgentLoggedInterceptor interceptor) {
+        Assert.notNull(interceptor, "Interceptor must not be null");
+        LoggedAgentRuntime.interceptor = interceptor;
+    }
+
+    static synchronized void resetInterceptor(AgentLoggedInterceptor interceptor) {
+        if (LoggedAgentRuntime.interceptor == interceptor) {
+            LoggedAgentRuntime.interceptor = null;
+        }
+    }
+
+    private static AgentLoggedInterceptor getInterceptor() {
+        AgentLoggedInterceptor current = interceptor;
+        if (current == null) {
+            synchronized (LoggedAgentRuntime.class) {
+                current = interceptor;
+                if (current == null) {
+                    current = new AgentLoggedInterceptor(new LoggedInterceptorProperties());
+                    interceptor = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * @return true if the body of the method was moved by the agent, which then logs it
+     */
+    public static boolean isInstrumented(Method method) {
+        try {
+            Method body = method.getDeclaringClass().getDeclaredMethod(
+                    method.getName() + LoggedClassVisitor.LOGGED_METHOD_SUFFIX, method.getParameterTypes());
+            return body.isSynthetic();
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    static synchronized int register(ClassLoader classLoader, String internalClassName, String name, String descriptor) {
+        InstrumentedMethod[] current = methods;
+        if (methodCount == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[methodCount] = new InstrumentedMethod(classLoader, internalClassName, name, descriptor);
+        methods = current;
+        return methodCount++;
+    }
+
+    /**
+     * @return true if the call must go through {@link #enter}, false if it is neither logged nor recorded
+     */
+    public static boolean isLogged(int methodId, Object target) {
+        Method method = methods[methodId].resolve();
+        return method != null && getInterceptor().isLogged(method, target);
+    }
+
+    /**
+     * @return the call to pass to {@link #exit} or {@link #exception}, null if the method is not logged
+     */
+    public static Object enter(int methodId, Object target, Object[] arguments) {
+        Method method = methods[methodId].resolve();
+        return method != null ? getInterceptor().enter(method, target, arguments) : null;
+    }
+
+    /**
+     * @return the value the instrumented method returns
+     */
+    public static Object exit(Object returnValue, Object invocation, long startTime) {
+        if (invocation == null) {
+            return returnValue;
+        }
+        return getInterceptor().exit((AgentInvocation) invocation, returnValue, startTime);
+    }
+
+    public static void exception(Throwable throwable, Object invocation, long startTime) {
+        if (invocation != null) {
+            getInterceptor().exception((AgentInvocation) invocation, throwable, startTime);
+        }
+    }
+
+    private static final class InstrumentedMethod {
+
+        private final WeakReference<ClassLoader> classLoader;
+        private final String className;
+        private final String name;
+        private final String descriptor;
+
+        private volatile Method method;
+        private volatile boolean unresolvable;
+
+        InstrumentedMethod(ClassLoader classLoader, String internalClassName, String name, String descriptor) {
+            this.classLoader = new WeakReference<>(classLoader);
+            this.className = internalClassName.replace('/', '.');
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+
+        Method resolve() {
+            Method resolved = method;
+            if (resolved == null && !unresolvable) {
+                resolved = findMethod();
+                if (resolved != null) {
+                    method = resolved;
+                } else {
+                    unresolvable = true;
+                    LOGGER.warn("Instrumented method " + className + "." + name + descriptor + " not found, it is not logged");
+                }
+            }
+            return resolved;
+        }
+
+        private Method findMethod() {
+            try {
+                Class<?> type = ClassUtils.forName(className, classLoader.get());
+                for (Method candidate : type.getDeclaredMethods()) {
+                    if (candidate.getName().equals(name) && Type.getMethodDescriptor(candidate).equals(descriptor)) {
+                        return candidate;
+                    }
+                }
+            } catch (ClassNotFoundException | LinkageError e) {
+                LOGGER.debug("Failed to load " + className, e);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package aspect.logger.agent;
+
+import aspect.logger.Logged;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.nio.charset.StandardCharsets;
+import java.security.ProtectionDomain;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Instruments the methods the {@link aspect.logger.LoggedPointcut} would match: methods annotated with {@link Logged}
+ * and public methods of classes annotated with it, except those declared by {@link Object}.
+ * Unlike a proxy, private, final and static methods are instrumented as well, and self-invocations are logged.
+ * Classes whose bytes do not mention the annotation at all are rejected without being parsed.
+ */
+public class LoggedClassTransformer implements ClassFileTransformer {
+
+    private static final Log LOGGER = LogFactory.getLog(LoggedClassTransformer.class);
+
+    private static final String LOGGED_DESCRIPTOR = Type.getDescriptor(Logged.class);
+    private static final byte[] LOGGED_DESCRIPTOR_BYTES = LOGGED_DESCRIPTOR.getBytes(StandardCharsets.UTF_8);
+
+    private static final Set<String> OBJECT_METHODS = new HashSet<>(Arrays.asList(
+            "equals(Ljava/lang/Object;)Z", "hashCode()I", "toString()Ljava/lang/String;",
+            "clone()Ljava/lang/Object;", "finalize()V"));
+
+    private static final int SKIPPED_METHODS = Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE
+            | Opcodes.ACC_BRIDGE | Opcodes.ACC_SYNTHETIC;
+
+    @Override
+    public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                            ProtectionDomain protectionDomain, byte[] classfileBuffer) {
+        if (loader == null || classBeingRedefined != null || !contains(classfileBuffer, LOGGED_DESCRIPTOR_BYTES)) {
+            return null;
+        }
+        try {
+            return instrument(loader, classfileBuffer);
+        } catch (RuntimeException | LinkageError e) {
+            //a class failing to load is worse than a class not logged
+            LOGGER.warn("Failed to instrument " + className + ", it is not logged", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the instrumented class, null if it has no method to instrument
+     */
+    byte[] instrument(ClassLoader loader, byte[] classfileBuffer) {
+        ClassReader reader = new ClassReader(classfileBuffer);
+        LoggedMethodScanner scanner = new LoggedMethodScanner();
+        reader.accept(scanner, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        if (scanner.instrumentedMethods.isEmpty()) {
+            return null;
+        }
+        ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+        reader.accept(new LoggedClassVisitor(writer, loader, scanner.instrumentedMethods), 0);
+        return writer.toByteArray();
+    }
+
+    private static boolean contains(byte[] bytes, byte[] pattern) {
+        byte first = pattern[0];
+        for (int i = 0, last = bytes.length - pattern.length; i <= last; i++) {
+            if (bytes[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < pattern.length && bytes[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collects the methods to instrument, name followed by descriptor.
+     */
+    private static final class LoggedMethodScanner extends ClassVisitor {
+
+        private final Set<String> instrumentedMethods = new LinkedHashSet<>();
+        private boolean skipped;
+        private boolean classLogged;
+
+        LoggedMethodScanner() {
+            super(Opcodes.ASM7);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            skipped = (access & Opcodes.ACC_INTERFACE) != 0;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            if (LOGGED_DESCRIPTOR.equals(descriptor)) {
+                classLogged = true;
+            }
+            return null;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            if (skipped || (access & SKIPPED_METHODS) != 0 || name.charAt(0) == '<') {
+                return null;
+            }
+            String method = name + descriptor;
+            if (classLogged && (access & Opcodes.ACC_PUBLIC) != 0 && !OBJECT_METHODS.contains(method)) {
+                instrumentedMethods.add(method);
+                return null;
+            }
+            return new MethodVisitor(Opcodes.ASM7) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String annotationDescriptor, boolean visible) {
+                    if (LOGGED_DESCRIPTOR.equals(annotationDescriptor)) {
+                        instrumentedMethods.add(method);
+                    }
+                    return null;
+                }
+            };
+        }
+    }
+}
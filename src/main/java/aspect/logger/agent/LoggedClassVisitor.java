@@ -0,0 +1,295 @@
+package aspect.logger.agent;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.asm.TypePath;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Instruments the given methods of a class: the body of each moves to a private synthetic method
+ * named {@code name$logged}, and a method with the original signature, access and annotations calls it between
+ * {@link LoggedAgentRuntime#enter}, {@link LoggedAgentRuntime#exit} and {@link LoggedAgentRuntime#exception}.
+ * Its arguments are only boxed once {@link LoggedAgentRuntime#isLogged} tells the call is logged.
+ * The moved body is copied as is, with its stack map frames, so only the small generated method needs new ones.
+ */
+class LoggedClassVisitor extends ClassVisitor {
+
+    static final String LOGGED_METHOD_SUFFIX = "$logged";
+
+    private static final String RUNTIME = Type.getInternalName(LoggedAgentRuntime.class);
+    private static final String OBJECT = "java/lang/Object";
+    private static final String THROWABLE = "java/lang/Throwable";
+
+    private static final int COPIED_ACCESS = Opcodes.ACC_STATIC | Opcodes.ACC_SYNCHRONIZED | Opcodes.ACC_STRICT;
+
+    private final ClassLoader classLoader;
+    private final Set<String> instrumentedMethods;
+
+    private String className;
+    private boolean stackMapFrames;
+
+    /**
+     * @param instrumentedMethods name followed by descriptor of every method to instrument
+     */
+    LoggedClassVisitor(ClassVisitor classVisitor, ClassLoader classLoader, Set<String> instrumentedMethods) {
+        super(Opcodes.ASM7, classVisitor);
+        this.classLoader = classLoader;
+        this.instrumentedMethods = instrumentedMethods;
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+        className = name;
+        stackMapFrames = (version & 0xFFFF) >= Opcodes.V1_6;
+        super.visit(version, access, name, signature, superName, interfaces);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+        if (!instrumentedMethods.contains(name + descriptor)) {
+            return super.visitMethod(access, name, descriptor, signature, exceptions);
+        }
+        int methodId = LoggedAgentRuntime.register(classLoader, className, name, descriptor);
+        MethodVisitor body = super.visitMethod(Opcodes.ACC_PRIVATE | Opcodes.ACC_SYNTHETIC | (access & COPIED_ACCESS),
+                name + LOGGED_METHOD_SUFFIX, descriptor, signature, exceptions);
+        MethodVisitor wrapper = super.visitMethod(access & ~Opcodes.ACC_SYNCHRONIZED, name, descriptor, signature, exceptions);
+        return new SplitMethodVisitor(body, wrapper, methodId, access, name, descriptor);
+    }
+
+    /**
+     * Sends the code of the method to its moved body and its annotations to the generated method,
+     * which is written once the original method has been read.
+     */
+    private class SplitMethodVisitor extends MethodVisitor {
+
+        private final MethodVisitor wrapper;
+        private final int methodId;
+        private final boolean isStatic;
+        private final String name;
+        private final String descriptor;
+
+        SplitMethodVisitor(MethodVisitor body, MethodVisitor wrapper, int methodId, int access, String name, String descriptor) {
+            super(Opcodes.ASM7, body);
+            this.wrapper = wrapper;
+            this.methodId = methodId;
+            this.isStatic = (access & Opcodes.ACC_STATIC) != 0;
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+
+        @Override
+        public void visitParameter(String name, int access) {
+            wrapper.visitParameter(name, access);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            return wrapper.visitAnnotation(descriptor, visible);
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String descriptor, boolean visible) {
+            return wrapper.visitTypeAnnotation(typeRef, typePath, descriptor, visible);
+        }
+
+        @Override
+        public void visitAnnotableParameterCount(int parameterCount, boolean visible) {
+            wrapper.visitAnnotableParameterCount(parameterCount, visible);
+        }
+
+        @Override
+        public AnnotationVisitor visitParameterAnnotation(int parameter, String descriptor, boolean visible) {
+            return wrapper.visitParameterAnnotation(parameter, descriptor, visible);
+        }
+
+        @Override
+        public void visitEnd() {
+            super.visitEnd();
+            generateWrapper();
+        }
+
+        private void generateWrapper() {
+            Type[] argumentTypes = Type.getArgumentTypes(descriptor);
+            Type returnType = Type.getReturnType(descriptor);
+            List<Object> frameLocals = new ArrayList<>();
+            int nextLocal = 0;
+            if (!isStatic) {
+                frameLocals.add(className);
+                nextLocal++;
+            }
+            for (Type argumentType : argumentTypes) {
+                frameLocals.add(frameType(argumentType));
+                nextLocal += argumentType.getSize();
+            }
+            int invocationLocal = nextLocal;
+            int startTimeLocal = nextLocal + 1;
+            frameLocals.add(OBJECT);
+            frameLocals.add(Opcodes.LONG);
+
+            MethodVisitor mv = wrapper;
+            Label tryStart = new Label();
+            Label tryEnd = new Label();
+            Label handler = new Label();
+            mv.visitCode();
+            mv.visitTryCatchBlock(tryStart, tryEnd, handler, THROWABLE);
+
+            //long startTime = System.nanoTime();
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
+            mv.visitVarInsn(Opcodes.LSTORE, startTimeLocal);
+
+            //Object invocation = null;
+            mv.visitInsn(Opcodes.ACONST_NULL);
+            mv.visitVarInsn(Opcodes.ASTORE, invocationLocal);
+
+            //if (LoggedAgentRuntime.isLogged(methodId, this)), so the arguments are only boxed for logged calls
+            mv.visitLdcInsn(methodId);
+            loadTarget(mv);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, RUNTIME, "isLogged", "(ILjava/lang/Object;)Z", false);
+            mv.visitJumpInsn(Opcodes.IFEQ, tryStart);
+
+            //invocation = LoggedAgentRuntime.enter(methodId, this, new Object[] {arguments});
+            mv.visitLdcInsn(methodId);
+            loadTarget(mv);
+            mv.visitLdcInsn(argumentTypes.length);
+            mv.visitTypeInsn(Opcodes.ANEWARRAY, OBJECT);
+            int local = isStatic ? 0 : 1;
+            for (int i = 0; i < argumentTypes.length; i++) {
+                mv.visitInsn(Opcodes.DUP);
+                mv.visitLdcInsn(i);
+                mv.visitVarInsn(argumentTypes[i].getOpcode(Opcodes.ILOAD), local);
+                box(mv, argumentTypes[i]);
+                mv.visitInsn(Opcodes.AASTORE);
+                local += argumentTypes[i].getSize();
+            }
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, RUNTIME, "enter", "(ILjava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;", false);
+            mv.visitVarInsn(Opcodes.ASTORE, invocationLocal);
+
+            //returnValue = name$logged(arguments);
+            mv.visitLabel(tryStart);
+            if (stackMapFrames) {
+                mv.visitFrame(Opcodes.F_FULL, frameLocals.size(), frameLocals.toArray(), 0, new Object[0]);
+            }
+            local = 0;
+            if (!isStatic) {
+                mv.visitVarInsn(Opcodes.ALOAD, 0);
+                local++;
+            }
+            for (Type argumentType : argumentTypes) {
+                mv.visitVarInsn(argumentType.getOpcode(Opcodes.ILOAD), local);
+                local += argumentType.getSize();
+            }
+            mv.visitMethodInsn(isStatic ? Opcodes.INVOKESTATIC : Opcodes.INVOKESPECIAL,
+                    className, name + LOGGED_METHOD_SUFFIX, descriptor, false);
+            mv.visitLabel(tryEnd);
+
+            //return LoggedAgentRuntime.exit(returnValue, invocation, startTime);
+            if (returnType.getSort() == Type.VOID) {
+                mv.visitInsn(Opcodes.ACONST_NULL);
+            } else {
+                box(mv, returnType);
+            }
+            mv.visitVarInsn(Opcodes.ALOAD, invocationLocal);
+            mv.visitVarInsn(Opcodes.LLOAD, startTimeLocal);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, RUNTIME, "exit", "(Ljava/lang/Object;Ljava/lang/Object;J)Ljava/lang/Object;", false);
+            if (returnType.getSort() == Type.VOID) {
+                mv.visitInsn(Opcodes.POP);
+            } else {
+                unbox(mv, returnType);
+            }
+            mv.visitInsn(returnType.getOpcode(Opcodes.IRETURN));
+
+            //catch (Throwable ex) { LoggedAgentRuntime.exception(ex, invocation, startTime); throw ex; }
+            mv.visitLabel(handler);
+            if (stackMapFrames) {
+                mv.visitFrame(Opcodes.F_FULL, frameLocals.size(), frameLocals.toArray(), 1, new Object[] {THROWABLE});
+            }
+            mv.visitInsn(Opcodes.DUP);
+            mv.visitVarInsn(Opcodes.ALOAD, invocationLocal);
+            mv.visitVarInsn(Opcodes.LLOAD, startTimeLocal);
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, RUNTIME, "exception", "(Ljava/lang/Throwable;Ljava/lang/Object;J)V", false);
+            mv.visitInsn(Opcodes.ATHROW);
+
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        private void loadTarget(MethodVisitor mv) {
+            if (isStatic) {
+                mv.visitInsn(Opcodes.ACONST_NULL);
+            } else {
+                mv.visitVarInsn(Opcodes.ALOAD, 0);
+            }
+        }
+    }
+
+    private static Object frameType(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+            case Type.CHAR:
+            case Type.BYTE:
+            case Type.SHORT:
+            case Type.INT:
+                return Opcodes.INTEGER;
+            case Type.FLOAT:
+                return Opcodes.FLOAT;
+            case Type.LONG:
+                return Opcodes.LONG;
+            case Type.DOUBLE:
+                return Opcodes.DOUBLE;
+            default:
+                return type.getInternalName();
+        }
+    }
+
+    private static void box(MethodVisitor mv, Type type) {
+        Type boxedType = boxedType(type);
+        if (boxedType != null) {
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, boxedType.getInternalName(), "valueOf",
+                    Type.getMethodDescriptor(boxedType, type), false);
+        }
+    }
+
+    private static void unbox(MethodVisitor mv, Type type) {
+        Type boxedType = boxedType(type);
+        if (boxedType != null) {
+            mv.visitTypeInsn(Opcodes.CHECKCAST, boxedType.getInternalName());
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, boxedType.getInternalName(), type.getClassName() + "Value",
+                    Type.getMethodDescriptor(type), false);
+        } else if (!type.getInternalName().equals(OBJECT)) {
+            mv.visitTypeInsn(Opcodes.CHECKCAST, type.getInternalName());
+        }
+    }
+
+    /**
+     * @return wrapper type of a primitive type, null for reference types
+     */
+    private static Type boxedType(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                return Type.getObjectType("java/lang/Boolean");
+            case Type.CHAR:
+                return Type.getObjectType("java/lang/Character");
+            case Type.BYTE:
+                return Type.getObjectType("java/lang/Byte");
+            case Type.SHORT:
+                return Type.getObjectType("java/lang/Short");
+            case Type.INT:
+                return Type.getObjectType("java/lang/Integer");
+            case Type.FLOAT:
+                return Type.getObjectType("java/lang/Float");
+            case Type.LONG:
+                return Type.getObjectType("java/lang/Long");
+            case Type.DOUBLE:
+                return Type.getObjectType("java/lang/Double");
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package aspect.logger.aggregation;
+
+import aspect.logger.LoggedMethod;
+import aspect.logger.backend.LogHandle;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collapses storms of the same failure into one full message and periodic summaries.
+ * Exceptions are keyed by method, exception type and throw site. The first one of a key in a window is logged in full,
+ * repeats within the window are only counted and reported by a background thread once per window.
+ * At most {@code maxTrackedExceptions} keys are tracked; beyond that exceptions are logged in full.
+ */
+public class ExceptionAggregator implements AutoCloseable {
+
+    private final long windowNanos;
+    private final int maxTrackedExceptions;
+    private final ConcurrentMap<Key, Occurrences> occurrences = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService summaryExecutor;
+
+    public ExceptionAggregator(long windowMillis, int maxTrackedExceptions) {
+        Assert.isTrue(windowMillis > 0, "windowMillis must be positive");
+        Assert.isTrue(maxTrackedExceptions > 0, "maxTrackedExceptions must be positive");
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxTrackedExceptions = maxTrackedExceptions;
+        this.summaryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "logged-interceptor-exception-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        summaryExecutor.scheduleWithFixedDelay(this::logSummaries, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param logHandle handle the summaries of the exception's repeats are logged through
+     * @return true if the exception is to be logged in full, false if it was counted as a repeat
+     */
+    public boolean shouldLog(LoggedMethod loggedMethod, LogHandle logHandle, Throwable throwable) {
+        Key key = new Key(loggedMethod.getMethod(), throwable);
+        long now = System.nanoTime();
+        Occurrences existing = occurrences.get(key);
+        if (existing == null) {
+            if (occurrences.size() >= maxTrackedExceptions) {
+                return true;
+            }
+            existing = occurrences.putIfAbsent(key, new Occurrences(logHandle, now));
+            if (existing == null) {
+                return true;
+            }
+        }
+        return !existing.countRepeat(now, windowNanos);
+    }
+
+    int getTrackedCount() {
+        return occurrences.size();
+    }
+
+    void logSummaries() {
+        long now = System.nanoTime();
+        Iterator<ConcurrentMap.Entry<Key, Occurrences>> iterator = occurrences.entrySet().iterator();
+        while (iterator.hasNext()) {
+            ConcurrentMap.Entry<Key, Occurrences> entry = iterator.next();
+            Occurrences occurrence = entry.getValue();
+            long suppressed = occurrence.suppressed.sumThenReset();
+            if (suppressed > 0) {
+                Key key = entry.getKey();
+                occurrence.logHandle.log(key.exceptionType.getName() + " at " + key.throwSite
+                        + " repeated " + suppressed + " times in " + ClassUtils.getQualifiedMethodName(key.method), null);
+            } else if (now - occurrence.windowStart.get() >= windowNanos) {
+                //storm is over, forget it so the structure only holds current failures
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        summaryExecutor.shutdown();
+        logSummaries();
+    }
+
+    private static final class Key {
+        private final Method method;
+        private final Class<?> exceptionType;
+        private final StackTraceElement throwSite;
+        private final int hashCode;
+
+        private Key(Method method, Throwable throwable) {
+            StackTraceElement[] stackTrace = throwable.getStackTrace();
+            this.method = method;
+            this.exceptionType = throwable.getClass();
+            this.throwSite = stackTrace.length > 0 ? stackTrace[0] : null;
+            this.hashCode = Objects.hash(method, exceptionType, throwSite);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return method.equals(key.method) && exceptionType == key.exceptionType
+                    && Objects.equals(throwSite, key.throwSite);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class Occurrences {
+        private final LogHandle logHandle;
+        private final LongAdder suppressed = new LongAdder();
+        private final AtomicLong windowStart;
+
+        private Occurrences(LogHandle logHandle, long windowStart) {
+            this.logHandle = logHandle;
+            this.windowStart = new AtomicLong(windowStart);
+        }
+
+        /**
+         * @return false if this occurrence starts a new window and is to be logged in full
+         */
+        private boolean countRepeat(long now, long windowNanos) {
+            long start = windowStart.get();
+            if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+                return false;
+            }
+            suppressed.increment();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package aspect.logger.aggregation;
+
+import aspect.logger.backend.LogHandle;
+import aspect.logger.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calls of one summarized method in the current interval. Recording goes to a histogram that is swapped for an empty
+ * one when the interval's summary is logged, so it is lock free and allocation free.
+ * Recorders count themselves in and out of a phase, as with a writer-reader phaser, so the swapped histogram is only
+ * read once the calls still recording into it are done: no call is lost at an interval boundary.
+ */
+public final class MethodSummary {
+
+    private final String name;
+    private volatile LatencyHistogram interval;
+    private volatile LogHandle logHandle;
+
+    //recorders started in the current phase, counting from Long.MIN_VALUE in odd phases
+    private final AtomicLong startedRecords = new AtomicLong();
+    private final AtomicLong evenEndedRecords = new AtomicLong();
+    private final AtomicLong oddEndedRecords = new AtomicLong(Long.MIN_VALUE);
+
+    MethodSummary(String name, LogHandle logHandle) {
+        this.name = name;
+        this.interval = new LatencyHistogram(name);
+        this.logHandle = logHandle;
+    }
+
+    public void record(long durationNanos, boolean error) {
+        long phase = startedRecords.getAndIncrement();
+        try {
+            interval.record(durationNanos, error);
+        } finally {
+            (phase < 0 ? oddEndedRecords : evenEndedRecords).incrementAndGet();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    LogHandle getLogHandle() {
+        return logHandle;
+    }
+
+    void setLogHandle(LogHandle logHandle) {
+        this.logHandle = logHandle;
+    }
+
+    /**
+     * Starts a new interval and waits for the calls still recording into the ended one.
+     *
+     * @return calls recorded since the previous reset
+     */
+    synchronized LatencyHistogram reset() {
+        LatencyHistogram ended = interval;
+        interval = new LatencyHistogram(name);
+
+        boolean nextPhaseEven = startedRecords.get() < 0;
+        long nextPhaseStart = nextPhaseEven ? 0 : Long.MIN_VALUE;
+        (nextPhaseEven ? evenEndedRecords : oddEndedRecords).set(nextPhaseStart);
+        long startedInEndedPhase = startedRecords.getAndSet(nextPhaseStart);
+        AtomicLong endedInEndedPhase = nextPhaseEven ? oddEndedRecords : evenEndedRecords;
+        while (endedInEndedPhase.get() != startedInEndedPhase) {
+            Thread.yield();
+        }
+        return ended;
+    }
+}
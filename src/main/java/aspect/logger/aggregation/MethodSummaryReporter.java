@@ -0,0 +1,94 @@
+package aspect.logger.aggregation;
+
+import aspect.logger.backend.LogHandle;
+import aspect.logger.metrics.LatencyHistogram;
+import aspect.logger.metrics.MethodLatencyRegistry;
+import org.springframework.util.Assert;
+
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs one summary line per summarized method and interval instead of a line per call: call and error counts,
+ * min, mean, percentiles and max duration. Methods without calls in an interval are not logged.
+ * The background thread is only started once a first method is summarized.
+ */
+public class MethodSummaryReporter implements AutoCloseable {
+
+    private final long intervalMillis;
+    private final ConcurrentMap<String, MethodSummary> summaries = new ConcurrentHashMap<>();
+    private ScheduledExecutorService summaryExecutor;
+    private boolean closed;
+
+    public MethodSummaryReporter(long intervalMillis) {
+        Assert.isTrue(intervalMillis > 0, "intervalMillis must be positive");
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * @param logHandle handle the summary is logged through, replaces the one of an existing summary
+     * @return summary of the method, shared by all callers for the same class and method signature
+     */
+    public MethodSummary summaryFor(Class<?> targetClass, Method method, LogHandle logHandle) {
+        String name = MethodLatencyRegistry.methodSignature(targetClass, method);
+        MethodSummary summary = summaries.get(name);
+        if (summary == null) {
+            startExecutor();
+            summary = summaries.computeIfAbsent(name, key -> new MethodSummary(key, logHandle));
+        }
+        summary.setLogHandle(logHandle);
+        return summary;
+    }
+
+    private synchronized void startExecutor() {
+        if (summaryExecutor != null || closed) {
+            return;
+        }
+        summaryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "logged-interceptor-method-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        summaryExecutor.scheduleAtFixedRate(this::logSummaries, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void logSummaries() {
+        for (MethodSummary summary : summaries.values()) {
+            LatencyHistogram calls = summary.reset();
+            LogHandle logHandle = summary.getLogHandle();
+            if (calls.getCount() > 0 && logHandle.isEnabled()) {
+                logHandle.log(format(summary.getName(), calls), null);
+            }
+        }
+    }
+
+    private String format(String name, LatencyHistogram calls) {
+        long count = calls.getCount();
+        return String.format(Locale.ROOT,
+                "Summary of %s in last %d ms: calls=%d, errors=%d, min=%.3f ms, mean=%.3f ms, "
+                        + "p50=%.3f ms, p90=%.3f ms, p99=%.3f ms, max=%.3f ms",
+                name, intervalMillis, count, calls.getErrorCount(),
+                calls.getMin(TimeUnit.MILLISECONDS), calls.getTotalTime(TimeUnit.MILLISECONDS) / count,
+                calls.getPercentile(0.5, TimeUnit.MILLISECONDS), calls.getPercentile(0.9, TimeUnit.MILLISECONDS),
+                calls.getPercentile(0.99, TimeUnit.MILLISECONDS), calls.getMax(TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Stops the background thread and logs the summaries of the current interval.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (summaryExecutor != null) {
+                summaryExecutor.shutdown();
+            }
+        }
+        logSummaries();
+    }
+}
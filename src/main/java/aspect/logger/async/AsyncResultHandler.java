@@ -0,0 +1,23 @@
+package aspect.logger.async;
+
+/**
+ * Hooks into an asynchronous return value so enter/exit/exception are logged on completion of the result,
+ * not when the method returns.
+ */
+public interface AsyncResultHandler {
+
+    boolean supports(Class<?> returnType);
+
+    /**
+     * Registers the listener without blocking.
+     * @return the value to return to the caller, either the result itself or a decorated equivalent
+     */
+    Object handle(Object result, AsyncResultListener listener);
+
+    /**
+     * @return true if the result does nothing until subscribed, so the enter message is logged on subscription
+     */
+    default boolean isLazy() {
+        return false;
+    }
+}
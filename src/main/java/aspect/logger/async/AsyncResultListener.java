@@ -0,0 +1,19 @@
+package aspect.logger.async;
+
+public interface AsyncResultListener {
+
+    void onSuccess(Object value);
+
+    void onError(Throwable error);
+
+    /**
+     * Called for every subscription of a lazy result, see {@link AsyncResultHandler#isLazy()}.
+     * @return listener for this particular subscription
+     */
+    default AsyncResultListener onSubscribe() {
+        return this;
+    }
+
+    default void onCancel() {
+    }
+}
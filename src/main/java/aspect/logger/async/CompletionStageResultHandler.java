@@ -0,0 +1,32 @@
+package aspect.logger.async;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+public class CompletionStageResultHandler implements AsyncResultHandler {
+
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return CompletionStage.class.isAssignableFrom(returnType);
+    }
+
+    @Override
+    public Object handle(Object result, AsyncResultListener listener) {
+        ((CompletionStage<?>) result).whenComplete((value, error) -> {
+            if (error != null) {
+                listener.onError(unwrap(error));
+            } else {
+                listener.onSuccess(value);
+            }
+        });
+        return result;
+    }
+
+    static Throwable unwrap(Throwable error) {
+        if ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+}
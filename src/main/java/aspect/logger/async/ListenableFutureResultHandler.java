@@ -0,0 +1,18 @@
+package aspect.logger.async;
+
+import org.springframework.util.concurrent.ListenableFuture;
+
+public class ListenableFutureResultHandler implements AsyncResultHandler {
+
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return ListenableFuture.class.isAssignableFrom(returnType);
+    }
+
+    @Override
+    public Object handle(Object result, AsyncResultListener listener) {
+        ((ListenableFuture<?>) result).addCallback(listener::onSuccess,
+                error -> listener.onError(CompletionStageResultHandler.unwrap(error)));
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package aspect.logger.async;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Logs {@link Mono} and {@link Flux} results per subscription: enter on subscribe, exit on completion
+ * (with the element count for {@link Flux}), exception on error, and cancellation.
+ * Counting is done on a plain field of the per-subscription subscriber, nothing is allocated per element.
+ * Only instantiated when Reactor is on the classpath.
+ */
+public class ReactorResultHandler implements AsyncResultHandler {
+
+    @Override
+    public boolean supports(Class<?> returnType) {
+        return Mono.class.isAssignableFrom(returnType) || Flux.class.isAssignableFrom(returnType);
+    }
+
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+
+    @Override
+    public Object handle(Object result, AsyncResultListener listener) {
+        //lift keeps the Mono/Flux type of the source
+        return lift((Publisher<?>) result, listener, result instanceof Mono);
+    }
+
+    private static <T> Publisher<T> lift(Publisher<T> publisher, AsyncResultListener listener, boolean mono) {
+        return Operators.<T, T>lift((scannable, actual) -> new LoggingSubscriber<T>(actual, listener.onSubscribe(), mono))
+                .apply(publisher);
+    }
+
+    static final class LoggingSubscriber<T> implements CoreSubscriber<T>, Subscription {
+
+        private final CoreSubscriber<? super T> actual;
+        private final AsyncResultListener listener;
+        private final boolean mono;
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<LoggingSubscriber> DONE =
+                AtomicIntegerFieldUpdater.newUpdater(LoggingSubscriber.class, "done");
+
+        private Subscription subscription;
+        private long count;
+        //cancel() may run on another thread than the signals, so the outcome is claimed with a CAS
+        private volatile int done;
+
+        LoggingSubscriber(CoreSubscriber<? super T> actual, AsyncResultListener listener, boolean mono) {
+            this.actual = actual;
+            this.listener = listener;
+            this.mono = mono;
+        }
+
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T element) {
+            count++;
+            //Mono subscribers such as block() may cancel right after the value instead of waiting for onComplete
+            if (mono && markDone()) {
+                listener.onSuccess(element);
+            }
+            actual.onNext(element);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            if (markDone()) {
+                listener.onError(error);
+            }
+            actual.onError(error);
+        }
+
+        @Override
+        public void onComplete() {
+            if (markDone()) {
+                listener.onSuccess(mono ? null : count + " elements");
+            }
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            subscription.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            if (markDone()) {
+                listener.onCancel();
+            }
+            subscription.cancel();
+        }
+
+        /**
+         * @return true for the first outcome of the subscription, which is the one logged
+         */
+        private boolean markDone() {
+            return done == 0 && DONE.compareAndSet(this, 0, 1);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package aspect.logger.backend;
+
+import aspect.logger.LogLevel;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Logs through commons-logging, as the interceptor always did.
+ */
+public class CommonsLogBackend implements LogBackend {
+
+    @Override
+    public LogHandle handle(String loggerName, LogLevel logLevel) {
+        return new CommonsLogHandle(LogFactory.getLog(loggerName), logLevel);
+    }
+}
@@ -0,0 +1,41 @@
+package aspect.logger.backend;
+
+import aspect.logger.LogHelper;
+import aspect.logger.LogLevel;
+import aspect.logger.LogMessageTemplate;
+import aspect.logger.TraceData;
+import org.apache.commons.logging.Log;
+
+/**
+ * Handle logging through a commons-logging {@link Log}, used as well for loggers the interceptor is given.
+ */
+public final class CommonsLogHandle implements LogHandle {
+
+    private final Log logger;
+    private final LogLevel logLevel;
+
+    public CommonsLogHandle(Log logger, LogLevel logLevel) {
+        this.logger = logger;
+        this.logLevel = logLevel;
+    }
+
+    @Override
+    public LogLevel getLogLevel() {
+        return logLevel;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return LogHelper.isLogLevelEnabled(logger, logLevel);
+    }
+
+    @Override
+    public void log(Object message, Throwable throwable) {
+        LogHelper.log(logger, logLevel, message, throwable);
+    }
+
+    @Override
+    public void log(LogMessageTemplate template, TraceData data, Throwable throwable) {
+        LogHelper.log(logger, logLevel, template.render(data), throwable);
+    }
+}
@@ -0,0 +1,29 @@
+package aspect.logger.backend;
+
+import aspect.logger.LogLevel;
+import aspect.logger.LogMessageTemplate;
+import aspect.logger.TraceData;
+
+/**
+ * Handle of the {@link LogLevel#OFF} level, which backends have no equivalent of.
+ */
+final class DisabledLogHandle implements LogHandle {
+
+    @Override
+    public LogLevel getLogLevel() {
+        return LogLevel.OFF;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void log(Object message, Throwable throwable) {
+    }
+
+    @Override
+    public void log(LogMessageTemplate template, TraceData data, Throwable throwable) {
+    }
+}
@@ -0,0 +1,23 @@
+package aspect.logger.backend;
+
+import aspect.logger.LogLevel;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.spi.LoggerContext;
+
+/**
+ * Logs straight to the log4j2 API. Messages are rendered by log4j2 into its own buffers through a reusable
+ * {@link org.apache.logging.log4j.message.Message}, so with log4j2's garbage-free logging no String is created.
+ */
+public class Log4j2LogBackend implements LogBackend {
+
+    private final LoggerContext loggerContext = LogManager.getContext(Log4j2LogBackend.class.getClassLoader(), false);
+
+    @Override
+    public LogHandle handle(String loggerName, LogLevel logLevel) {
+        if (logLevel == LogLevel.OFF) {
+            return new DisabledLogHandle();
+        }
+        return new Log4j2LogHandle(loggerContext.getLogger(loggerName), logLevel, Level.valueOf(logLevel.name()));
+    }
+}
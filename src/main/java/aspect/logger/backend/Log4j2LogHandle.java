@@ -0,0 +1,116 @@
+package aspect.logger.backend;
+
+import aspect.logger.LogLevel;
+import aspect.logger.LogMessageTemplate;
+import aspect.logger.TraceData;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.message.Message;
+import org.apache.logging.log4j.message.ReusableMessage;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.apache.logging.log4j.spi.ExtendedLogger;
+
+final class Log4j2LogHandle implements LogHandle {
+
+    private static final String FQCN = Log4j2LogHandle.class.getName();
+
+    private static final ThreadLocal<TemplateMessage> MESSAGE = ThreadLocal.withInitial(TemplateMessage::new);
+
+    private final ExtendedLogger logger;
+    private final LogLevel logLevel;
+    private final Level level;
+
+    Log4j2LogHandle(ExtendedLogger logger, LogLevel logLevel, Level level) {
+        this.logger = logger;
+        this.logLevel = logLevel;
+        this.level = level;
+    }
+
+    @Override
+    public LogLevel getLogLevel() {
+        return logLevel;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return logger.isEnabled(level);
+    }
+
+    @Override
+    public void log(Object message, Throwable throwable) {
+        if (message instanceof String) {
+            logger.logIfEnabled(FQCN, level, null, (String) message, throwable);
+        } else {
+            logger.logIfEnabled(FQCN, level, null, message, throwable);
+        }
+    }
+
+    @Override
+    public void log(LogMessageTemplate template, TraceData data, Throwable throwable) {
+        if (!logger.isEnabled(level)) {
+            return;
+        }
+        TemplateMessage message = MESSAGE.get();
+        if (message.data != null) {
+            //re-entrant call, e.g. toString() of an argument is itself @Logged
+            message = new TemplateMessage();
+        }
+        message.template = template;
+        message.data = data;
+        try {
+            logger.logMessage(FQCN, level, null, message, throwable);
+        } finally {
+            message.template = null;
+            message.data = null;
+        }
+    }
+
+    /**
+     * Renders the template straight into the buffer log4j2 hands over; log4j2 copies reusable messages
+     * before they leave the calling thread, e.g. to an async logger.
+     */
+    private static final class TemplateMessage implements ReusableMessage {
+
+        private LogMessageTemplate template;
+        private TraceData data;
+
+        @Override
+        public void formatTo(StringBuilder buffer) {
+            template.renderTo(buffer, data);
+        }
+
+        @Override
+        public String getFormattedMessage() {
+            return template.render(data);
+        }
+
+        @Override
+        public String getFormat() {
+            return template.getMessage();
+        }
+
+        @Override
+        public Object[] getParameters() {
+            return null;
+        }
+
+        @Override
+        public Throwable getThrowable() {
+            return null;
+        }
+
+        @Override
+        public Object[] swapParameters(Object[] emptyReplacement) {
+            return emptyReplacement;
+        }
+
+        @Override
+        public short getParameterCount() {
+            return 0;
+        }
+
+        @Override
+        public Message memento() {
+            return new SimpleMessage(getFormattedMessage());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package aspect.logger.backend;
+
+import aspect.logger.LogLevel;
+
+/**
+ * Logging backend the handles of logged methods are resolved against, see {@link LogBackendType}.
+ */
+public interface LogBackend {
+
+    LogHandle handle(String loggerName, LogLevel logLevel);
+}
@@ -0,0 +1,37 @@
+package aspect.logger.backend;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Logging backend logged methods log to. {@link #AUTO} picks the backend commons-logging itself would delegate to:
+ * log4j2 when its API is present and not routed to SLF4J, else SLF4J when present, else commons-logging.
+ */
+public enum LogBackendType {
+
+    AUTO,
+    LOG4J2,
+    SLF4J,
+    COMMONS_LOGGING;
+
+    private static final ClassLoader CLASS_LOADER = LogBackendType.class.getClassLoader();
+
+    private static final boolean LOG4J2_PRESENT = ClassUtils.isPresent("org.apache.logging.log4j.spi.ExtendedLogger", CLASS_LOADER);
+    private static final boolean LOG4J2_TO_SLF4J = ClassUtils.isPresent("org.apache.logging.slf4j.SLF4JProvider", CLASS_LOADER);
+    private static final boolean SLF4J_PRESENT = ClassUtils.isPresent("org.slf4j.Logger", CLASS_LOADER);
+
+    public LogBackend create() {
+        switch (this) {
+            case AUTO:
+                if (LOG4J2_PRESENT && !LOG4J2_TO_SLF4J) {
+                    return new Log4j2LogBackend();
+                }
+                return SLF4J_PRESENT ? new Slf4jLogBackend() : new CommonsLogBackend();
+            case LOG4J2:
+                return new Log4j2LogBackend();
+            case SLF4J:
+                return new Slf4jLogBackend();
+            default:
+                return new CommonsLogBackend();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package aspect.logger.backend;
+
+import aspect.logger.LogLevel;
+import aspect.logger.LogMessageTemplate;
+import aspect.logger.TraceData;
+
+/**
+ * A logger and level pair, resolved once per logged method, that logs straight to the logging backend.
+ */
+public interface LogHandle {
+
+    LogLevel getLogLevel();
+
+    boolean isEnabled();
+
+    void log(Object message, Throwable throwable);
+
+    /**
+     * Renders the template while logging: into the backend's own buffer where the backend allows it,
+     * into a String otherwise.
+     */
+    void log(LogMessageTemplate template, TraceData data, Throwable throwable);
+}
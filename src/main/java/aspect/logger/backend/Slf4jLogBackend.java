@@ -0,0 +1,18 @@
+package aspect.logger.backend;
+
+import aspect.logger.LogLevel;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs straight to the SLF4J API, {@link LogLevel#FATAL} as error.
+ */
+public class Slf4jLogBackend implements LogBackend {
+
+    @Override
+    public LogHandle handle(String loggerName, LogLevel logLevel) {
+        if (logLevel == LogLevel.OFF) {
+            return new DisabledLogHandle();
+        }
+        return Slf4jLogHandle.of(LoggerFactory.getLogger(loggerName), logLevel);
+    }
+}
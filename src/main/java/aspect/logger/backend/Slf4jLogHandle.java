@@ -0,0 +1,106 @@
+package aspect.logger.backend;
+
+import aspect.logger.LogLevel;
+import aspect.logger.LogMessageTemplate;
+import aspect.logger.TraceData;
+import org.slf4j.Logger;
+
+/**
+ * One subclass per level, so the level is not switched on for every call.
+ */
+abstract class Slf4jLogHandle implements LogHandle {
+
+    protected final Logger logger;
+    private final LogLevel logLevel;
+
+    private Slf4jLogHandle(Logger logger, LogLevel logLevel) {
+        this.logger = logger;
+        this.logLevel = logLevel;
+    }
+
+    static LogHandle of(Logger logger, LogLevel logLevel) {
+        switch (logLevel) {
+            case TRACE:
+                return new Slf4jLogHandle(logger, logLevel) {
+                    @Override
+                    public boolean isEnabled() {
+                        return logger.isTraceEnabled();
+                    }
+
+                    @Override
+                    protected void log(String message, Throwable throwable) {
+                        logger.trace(message, throwable);
+                    }
+                };
+            case DEBUG:
+                return new Slf4jLogHandle(logger, logLevel) {
+                    @Override
+                    public boolean isEnabled() {
+                        return logger.isDebugEnabled();
+                    }
+
+                    @Override
+                    protected void log(String message, Throwable throwable) {
+                        logger.debug(message, throwable);
+                    }
+                };
+            case INFO:
+                return new Slf4jLogHandle(logger, logLevel) {
+                    @Override
+                    public boolean isEnabled() {
+                        return logger.isInfoEnabled();
+                    }
+
+                    @Override
+                    protected void log(String message, Throwable throwable) {
+                        logger.info(message, throwable);
+                    }
+                };
+            case WARN:
+                return new Slf4jLogHandle(logger, logLevel) {
+                    @Override
+                    public boolean isEnabled() {
+                        return logger.isWarnEnabled();
+                    }
+
+                    @Override
+                    protected void log(String message, Throwable throwable) {
+                        logger.warn(message, throwable);
+                    }
+                };
+            default:
+                return new Slf4jLogHandle(logger, logLevel) {
+                    @Override
+                    public boolean isEnabled() {
+                        return logger.isErrorEnabled();
+                    }
+
+                    @Override
+                    protected void log(String message, Throwable throwable) {
+                        logger.error(message, throwable);
+                    }
+                };
+        }
+    }
+
+    protected abstract void log(String message, Throwable throwable);
+
+    @Override
+    public LogLevel getLogLevel() {
+        return logLevel;
+    }
+
+    @Override
+    public void log(Object message, Throwable throwable) {
+        if (isEnabled()) {
+            log(String.valueOf(message), throwable);
+        }
+    }
+
+    @Override
+    public void log(LogMessageTemplate template, TraceData data, Throwable throwable) {
+        if (isEnabled()) {
+            log(template.render(data), throwable);
+        }
+    }
+}
@@ -1,15 +1,26 @@
 package aspect.logger.configuration;
 
+import aspect.logger.ArgumentRenderer;
 import aspect.logger.CustomizableLoggedInterceptor;
+import aspect.logger.LoggedPointcut;
+import aspect.logger.agent.AgentLoggedInterceptor;
+import aspect.logger.agent.LoggedAgent;
+import aspect.logger.agent.LoggedAgentRuntime;
+import aspect.logger.metrics.LatencyMeterBinder;
+import aspect.logger.metrics.LoggedMethodsEndpoint;
 import aspect.logger.properties.LoggedInterceptorProperties;
 import org.springframework.aop.Advisor;
-import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.stream.Collectors;
+
 @Configuration
 @ConditionalOnProperty(prefix = "logging.interceptor", name = "enabled", havingValue = "true", matchIfMissing = true)
 public class LoggedAutoConfiguration {
@@ -21,17 +32,63 @@ public class LoggedAutoConfiguration {
     }
 
     @Bean
-    public CustomizableLoggedInterceptor loggedInterceptor(LoggedInterceptorProperties properties) {
-        return new CustomizableLoggedInterceptor(properties);
+    public CustomizableLoggedInterceptor loggedInterceptor(LoggedInterceptorProperties properties,
+                                                           ObjectProvider<ArgumentRenderer<?>> argumentRenderers) {
+        CustomizableLoggedInterceptor interceptor;
+        if (LoggedAgent.isInstalled()) {
+            //instrumented methods are logged with the same settings as proxied ones
+            AgentLoggedInterceptor agentInterceptor = new AgentLoggedInterceptor(properties);
+            LoggedAgentRuntime.setInterceptor(agentInterceptor);
+            interceptor = agentInterceptor;
+        } else {
+            interceptor = new CustomizableLoggedInterceptor(properties);
+        }
+        interceptor.setArgumentRenderers(argumentRenderers.orderedStream().collect(Collectors.toList()));
+        return interceptor;
+    }
+
+    @Bean
+    public static LoggedMethodResolver loggedMethodResolver(ObjectProvider<CustomizableLoggedInterceptor> loggedInterceptor) {
+        return new LoggedMethodResolver(loggedInterceptor);
     }
 
     @Bean
     public Advisor loggedAdvisor(CustomizableLoggedInterceptor loggedInterceptor) {
-        AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
-        String expresion = "(execution(public * *(..)) && !execution(* java.lang.Object.*(..))" +
-                "&& within(@aspect.logger.Logged *))" +
-                "|| @annotation(aspect.logger.Logged)";
-        pointcut.setExpression(expresion);
-        return new DefaultPointcutAdvisor(pointcut, loggedInterceptor);
+        return new DefaultPointcutAdvisor(new LoggedPointcut(), loggedInterceptor);
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(prefix = "logging.interceptor", name = "record-latency", havingValue = "true")
+    static class LatencyMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public LatencyMeterBinder loggedLatencyMeterBinder(CustomizableLoggedInterceptor loggedInterceptor) {
+            return new LatencyMeterBinder(loggedInterceptor.getLatencyRegistry());
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    @ConditionalOnProperty(prefix = "logging.interceptor", name = "record-latency", havingValue = "true")
+    static class LoggedMethodsEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public LoggedMethodsEndpoint loggedMethodsEndpoint(CustomizableLoggedInterceptor loggedInterceptor) {
+            return new LoggedMethodsEndpoint(loggedInterceptor.getLatencyRegistry());
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    static class LoggedConfigurationEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public LoggedConfigurationEndpoint loggedConfigurationEndpoint(CustomizableLoggedInterceptor loggedInterceptor) {
+            return new LoggedConfigurationEndpoint(loggedInterceptor);
+        }
     }
 }
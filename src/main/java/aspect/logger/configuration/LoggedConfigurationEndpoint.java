@@ -0,0 +1,60 @@
+package aspect.logger.configuration;
+
+import aspect.logger.CustomizableLoggedInterceptor;
+import aspect.logger.LogLevel;
+import aspect.logger.LoggedOverride;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint to change the settings of logged methods, classes or packages at runtime,
+ * e.g. {@code POST /actuator/loggedconfig/com.acme.OrderService.find {"exitMessageLogLevel": "INFO"}}.
+ */
+@Endpoint(id = "loggedconfig")
+public class LoggedConfigurationEndpoint {
+
+    private final CustomizableLoggedInterceptor loggedInterceptor;
+
+    public LoggedConfigurationEndpoint(CustomizableLoggedInterceptor loggedInterceptor) {
+        this.loggedInterceptor = loggedInterceptor;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> overrides() {
+        Map<String, Map<String, Object>> overrides = new TreeMap<>();
+        loggedInterceptor.getOverrides().forEach((name, override) -> overrides.put(name, override.toMap()));
+        return overrides;
+    }
+
+    @ReadOperation
+    public Map<String, Object> override(@Selector String name) {
+        LoggedOverride override = loggedInterceptor.getOverrides().get(name);
+        return override != null ? override.toMap() : null;
+    }
+
+    @WriteOperation
+    public void setOverride(@Selector String name, @Nullable Boolean enabled,
+                            @Nullable String enterMessage, @Nullable LogLevel enterMessageLogLevel,
+                            @Nullable String exitMessage, @Nullable LogLevel exitMessageLogLevel,
+                            @Nullable String exceptionMessage, @Nullable LogLevel exceptionMessageLogLevel,
+                            @Nullable Integer sampleEvery, @Nullable Double samplePercentage,
+                            @Nullable Long slowCallThreshold) {
+        loggedInterceptor.setOverride(name, new LoggedOverride(enabled,
+                enterMessage, enterMessageLogLevel,
+                exitMessage, exitMessageLogLevel,
+                exceptionMessage, exceptionMessageLogLevel,
+                sampleEvery, samplePercentage, slowCallThreshold));
+    }
+
+    @DeleteOperation
+    public void removeOverride(@Selector String name) {
+        loggedInterceptor.removeOverride(name);
+    }
+}
@@ -0,0 +1,54 @@
+package aspect.logger.configuration;
+
+import aspect.logger.CustomizableLoggedInterceptor;
+import aspect.logger.LoggedPointcut;
+import aspect.logger.agent.LoggedAgent;
+import aspect.logger.agent.LoggedAgentRuntime;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Resolves the logging of every logged method of a bean as the bean is created, so an invalid
+ * {@link aspect.logger.Logged} fails the application context startup instead of the method's first call,
+ * and calls only look their method up in the interceptor's cache. Methods instrumented by the agent are included.
+ */
+public class LoggedMethodResolver implements BeanPostProcessor {
+
+    private final LoggedPointcut pointcut = new LoggedPointcut();
+    private final ObjectProvider<CustomizableLoggedInterceptor> loggedInterceptor;
+
+    public LoggedMethodResolver(ObjectProvider<CustomizableLoggedInterceptor> loggedInterceptor) {
+        this.loggedInterceptor = loggedInterceptor;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        if (!pointcut.getClassFilter().matches(targetClass)) {
+            return bean;
+        }
+        CustomizableLoggedInterceptor interceptor = loggedInterceptor.getObject();
+        //class proxies are called with the class methods, interface proxies with the interface methods
+        for (Method method : ReflectionUtils.getUniqueDeclaredMethods(ClassUtils.getUserClass(targetClass))) {
+            prepare(interceptor, method, targetClass);
+        }
+        for (Class<?> type : ClassUtils.getAllInterfacesForClassAsSet(targetClass)) {
+            for (Method method : type.getMethods()) {
+                prepare(interceptor, method, targetClass);
+            }
+        }
+        return bean;
+    }
+
+    private void prepare(CustomizableLoggedInterceptor interceptor, Method method, Class<?> targetClass) {
+        if (pointcut.getMethodMatcher().matches(method, targetClass)
+                || LoggedAgent.isInstalled() && LoggedAgentRuntime.isInstrumented(method)) {
+            interceptor.prepareLoggedMethod(method, targetClass);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package aspect.logger.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent latency histogram of one method, recorded in microseconds.
+ * Buckets are log-linear with 8 sub-buckets per power of two, so a percentile is within 12.5% of the true value
+ * while the whole histogram takes a few KB. Recording is a bucket index computation and three atomic increments,
+ * with no locks and no allocation, but for starting a new window.
+ * Counts, total and max cover the whole life of the histogram. With a window, percentiles only cover the calls of
+ * the current and the previous window, so they follow the current latency instead of averaging it with the past.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    //2^40 microseconds is about 12 days, longer calls are counted in the last bucket
+    private static final int MAX_VALUE_BITS = 40;
+    private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    //previous window of the histograms with none, never recorded into
+    private static final AtomicLongArray NO_BUCKETS = new AtomicLongArray(BUCKET_COUNT);
+
+    private final String name;
+    private final long windowNanos;
+    private volatile AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private volatile AtomicLongArray previousBuckets = NO_BUCKETS;
+    private volatile long windowEnd;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder totalTime = new LongAdder();
+    private final LongAccumulator maxTime = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates a histogram whose percentiles cover all the calls it recorded.
+     */
+    public LatencyHistogram(String name) {
+        this(name, -1);
+    }
+
+    /**
+     * @param windowMillis length of a window, percentiles covering the calls of the last one to two windows;
+     *                     negative to have them cover all calls
+     */
+    public LatencyHistogram(String name, long windowMillis) {
+        this.name = name;
+        this.windowNanos = windowMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.windowEnd = System.nanoTime() + windowNanos;
+    }
+
+    public void record(long durationNanos, boolean error) {
+        long micros = Math.max(0, durationNanos / 1000);
+        currentBuckets().incrementAndGet(bucketIndex(micros));
+        count.increment();
+        totalTime.add(micros);
+        maxTime.accumulate(micros);
+        if (error) {
+            errorCount.increment();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    public double getTotalTime(TimeUnit unit) {
+        return toUnit(totalTime.sum(), unit);
+    }
+
+    public double getMax(TimeUnit unit) {
+        return toUnit(maxTime.get(), unit);
+    }
+
+    /**
+     * @return approximate duration of the fastest call, with the same precision as percentiles
+     */
+    public double getMin(TimeUnit unit) {
+        return getPercentile(0, unit);
+    }
+
+    /**
+     * @param quantile between 0 and 1, e.g. 0.99
+     * @return approximate duration below which the given share of calls finished, 0 if nothing was recorded
+     */
+    public double getPercentile(double quantile, TimeUnit unit) {
+        AtomicLongArray current = currentBuckets();
+        AtomicLongArray previous = previousBuckets;
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = current.get(i) + previous.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return toUnit(Math.min(bucketMidpoint(i), maxTime.get()), unit);
+            }
+        }
+        return toUnit(maxTime.get(), unit);
+    }
+
+    /**
+     * @return buckets of the current window, started first if the last one is over
+     */
+    private AtomicLongArray currentBuckets() {
+        if (windowNanos < 0 || System.nanoTime() - windowEnd < 0) {
+            return buckets;
+        }
+        synchronized (this) {
+            long now = System.nanoTime();
+            long overdue = now - windowEnd;
+            if (overdue >= 0) {
+                //a window that ended more than a window ago is too old to be kept as the previous one
+                previousBuckets = overdue < windowNanos ? buckets : NO_BUCKETS;
+                buckets = new AtomicLongArray(BUCKET_COUNT);
+                windowEnd = now + windowNanos;
+            }
+            return buckets;
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT * 2) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        int index = (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+        return Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    static long bucketMidpoint(int index) {
+        if (index < SUB_BUCKET_COUNT * 2) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) ((index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT) << shift;
+        return lowest + ((1L << shift) >>> 1);
+    }
+
+    private static double toUnit(long micros, TimeUnit unit) {
+        return micros * 1000.0 / unit.toNanos(1);
+    }
+}
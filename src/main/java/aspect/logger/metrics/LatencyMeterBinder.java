@@ -0,0 +1,47 @@
+package aspect.logger.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports every histogram of a {@link MethodLatencyRegistry} to Micrometer as a {@code logged.method} timer,
+ * a {@code logged.method.errors} counter and {@code logged.method.percentile} gauges, tagged with the method signature.
+ * The gauges follow the percentile window of the histograms, the timer and the counter count every call.
+ */
+public class LatencyMeterBinder implements MeterBinder {
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final MethodLatencyRegistry latencyRegistry;
+
+    public LatencyMeterBinder(MethodLatencyRegistry latencyRegistry) {
+        this.latencyRegistry = latencyRegistry;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        latencyRegistry.addListener(histogram -> bind(registry, histogram));
+    }
+
+    private static void bind(MeterRegistry registry, LatencyHistogram histogram) {
+        FunctionTimer.builder("logged.method", histogram,
+                LatencyHistogram::getCount, h -> h.getTotalTime(TimeUnit.MICROSECONDS), TimeUnit.MICROSECONDS)
+                .tag("method", histogram.getName())
+                .register(registry);
+        FunctionCounter.builder("logged.method.errors", histogram, LatencyHistogram::getErrorCount)
+                .tag("method", histogram.getName())
+                .register(registry);
+        for (double percentile : PERCENTILES) {
+            Gauge.builder("logged.method.percentile", histogram, h -> h.getPercentile(percentile, TimeUnit.SECONDS))
+                    .tag("method", histogram.getName())
+                    .tag("percentile", String.valueOf(percentile))
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+    }
+}
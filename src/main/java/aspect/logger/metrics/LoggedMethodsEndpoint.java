@@ -0,0 +1,38 @@
+package aspect.logger.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actuator endpoint listing the logged methods called so far with their call counts and latencies in milliseconds.
+ */
+@Endpoint(id = "logged")
+public class LoggedMethodsEndpoint {
+
+    private final MethodLatencyRegistry latencyRegistry;
+
+    public LoggedMethodsEndpoint(MethodLatencyRegistry latencyRegistry) {
+        this.latencyRegistry = latencyRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> loggedMethods() {
+        Map<String, Map<String, Object>> methods = new TreeMap<>();
+        for (LatencyHistogram histogram : latencyRegistry.getHistograms()) {
+            Map<String, Object> method = new LinkedHashMap<>();
+            method.put("count", histogram.getCount());
+            method.put("errors", histogram.getErrorCount());
+            method.put("p50", histogram.getPercentile(0.5, TimeUnit.MILLISECONDS));
+            method.put("p99", histogram.getPercentile(0.99, TimeUnit.MILLISECONDS));
+            method.put("p999", histogram.getPercentile(0.999, TimeUnit.MILLISECONDS));
+            method.put("max", histogram.getMax(TimeUnit.MILLISECONDS));
+            methods.put(histogram.getName(), method);
+        }
+        return methods;
+    }
+}
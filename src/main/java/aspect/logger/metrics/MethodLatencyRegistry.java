@@ -0,0 +1,80 @@
+package aspect.logger.metrics;
+
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Latency histograms of logged methods, one per class and method signature, so overloads are told apart.
+ * Histograms outlive the interceptor's method cache, so reconfiguring logging does not reset them.
+ */
+public class MethodLatencyRegistry {
+
+    public static final long DEFAULT_PERCENTILE_WINDOW = 60_000;
+
+    private final long percentileWindowMillis;
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final List<Consumer<LatencyHistogram>> listeners = new CopyOnWriteArrayList<>();
+
+    public MethodLatencyRegistry() {
+        this(DEFAULT_PERCENTILE_WINDOW);
+    }
+
+    /**
+     * @param percentileWindowMillis window of the percentiles of the histograms, see {@link LatencyHistogram}
+     */
+    public MethodLatencyRegistry(long percentileWindowMillis) {
+        this.percentileWindowMillis = percentileWindowMillis;
+    }
+
+    /**
+     * @return qualified name of the method followed by its parameter types, e.g. {@code com.acme.OrderService.find(long)}
+     */
+    public static String methodSignature(Class<?> targetClass, Method method) {
+        StringBuilder signature = new StringBuilder(ClassUtils.getQualifiedMethodName(method, targetClass)).append('(');
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                signature.append(',');
+            }
+            signature.append(parameterTypes[i].getTypeName());
+        }
+        return signature.append(')').toString();
+    }
+
+    public LatencyHistogram histogramFor(Class<?> targetClass, Method method) {
+        String name = methodSignature(targetClass, method);
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram != null) {
+            return histogram;
+        }
+        LatencyHistogram created = new LatencyHistogram(name, percentileWindowMillis);
+        histogram = histograms.putIfAbsent(name, created);
+        if (histogram != null) {
+            return histogram;
+        }
+        for (Consumer<LatencyHistogram> listener : listeners) {
+            listener.accept(created);
+        }
+        return created;
+    }
+
+    public Collection<LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableCollection(histograms.values());
+    }
+
+    /**
+     * Calls the listener for every existing and every later created histogram.
+     */
+    public void addListener(Consumer<LatencyHistogram> listener) {
+        listeners.add(listener);
+        histograms.values().forEach(listener);
+    }
+}
@@ -0,0 +1,207 @@
+package aspect.logger.pipeline;
+
+import aspect.logger.LogMessageTemplate;
+import aspect.logger.LoggedMethod;
+import aspect.logger.TraceData;
+import aspect.logger.backend.LogHandle;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves message rendering and logging off the calling thread.
+ * Callers publish the parts of a message into a preallocated ring buffer of reusable slots
+ * (bounded multi-producer queue with a sequence number per slot); a single daemon thread renders and logs them in order.
+ * Arguments and return values are passed by reference, so they are rendered as they are when the consumer gets to them.
+ */
+public class AsyncLogPipeline implements AutoCloseable {
+
+    private static final Log LOGGER = LogFactory.getLog(AsyncLogPipeline.class);
+
+    private static final int SAMPLE_EVERY = 8;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Slot[] slots;
+    private final int mask;
+    private final OverflowPolicy overflowPolicy;
+
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final LongAdder droppedCount = new LongAdder();
+    private final AtomicLong overflowCounter = new AtomicLong();
+    private long reportedDroppedCount;
+
+    private final Thread consumer;
+    private volatile boolean running = true;
+    private volatile boolean idle;
+
+    /**
+     * @param bufferSize number of slots, rounded up to a power of two of at least 2
+     */
+    public AsyncLogPipeline(int bufferSize, OverflowPolicy overflowPolicy) {
+        Assert.isTrue(bufferSize > 0, "bufferSize must be positive");
+        Assert.notNull(overflowPolicy, "Overflow policy is null.");
+        int capacity = Math.max(2, Integer.highestOneBit(bufferSize - 1) << 1);
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot(i);
+        }
+        this.mask = capacity - 1;
+        this.overflowPolicy = overflowPolicy;
+        this.consumer = new Thread(this::consume, "logged-interceptor-pipeline");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * @return false if the message was dropped
+     */
+    public boolean publish(LogHandle logHandle, LogMessageTemplate template, LoggedMethod loggedMethod,
+                           Object[] arguments, Object returnValue, long executionTime, Throwable throwable) {
+        if (overflowPolicy == OverflowPolicy.SAMPLE && throwable == null && isAboveHighWaterMark()
+                && overflowCounter.getAndIncrement() % SAMPLE_EVERY != 0) {
+            droppedCount.increment();
+            return false;
+        }
+        while (running) {
+            long position = tail.get();
+            Slot slot = slots[(int) position & mask];
+            long available = slot.sequence - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slot.logHandle = logHandle;
+                    slot.template = template;
+                    slot.loggedMethod = loggedMethod;
+                    slot.arguments = arguments;
+                    slot.returnValue = returnValue;
+                    slot.executionTime = executionTime;
+                    slot.throwable = throwable;
+                    slot.sequence = position + 1;
+                    if (idle) {
+                        LockSupport.unpark(consumer);
+                    }
+                    return true;
+                }
+            } else if (available < 0) {
+                //full
+                if (overflowPolicy != OverflowPolicy.BLOCK) {
+                    droppedCount.increment();
+                    return false;
+                }
+                LockSupport.unpark(consumer);
+                Thread.yield();
+            }
+        }
+        droppedCount.increment();
+        return false;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    public int getPendingCount() {
+        return (int) (tail.get() - head);
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Stops accepting messages, logs the ones already published and stops the consumer thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(consumer);
+        consumer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private boolean isAboveHighWaterMark() {
+        return getPendingCount() > slots.length - (slots.length >> 2);
+    }
+
+    private void consume() {
+        while (true) {
+            Slot slot = slots[(int) head & mask];
+            if (slot.sequence == head + 1) {
+                //copy the slot out and free it before the slow part
+                LogHandle logHandle = slot.logHandle;
+                LogMessageTemplate template = slot.template;
+                LoggedMethod loggedMethod = slot.loggedMethod;
+                Object[] arguments = slot.arguments;
+                Object returnValue = slot.returnValue;
+                long executionTime = slot.executionTime;
+                Throwable throwable = slot.throwable;
+                slot.clear();
+                slot.sequence = head + slots.length;
+                head++;
+                log(logHandle, template, loggedMethod, arguments, returnValue, executionTime, throwable);
+            } else if (running) {
+                reportDroppedMessages();
+                idle = true;
+                if (slot.sequence != head + 1 && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+            } else if (tail.get() == head) {
+                reportDroppedMessages();
+                return;
+            } else {
+                //claimed by a producer that has not filled the slot yet
+                Thread.yield();
+            }
+        }
+    }
+
+    private static void log(LogHandle logHandle, LogMessageTemplate template, LoggedMethod loggedMethod,
+                            Object[] arguments, Object returnValue, long executionTime, Throwable throwable) {
+        try {
+            logHandle.log(template, new TraceData(loggedMethod.getTargetClass(), loggedMethod.getMethod(),
+                    arguments, loggedMethod.getArgumentMask(), returnValue, executionTime), throwable);
+        } catch (RuntimeException | LinkageError e) {
+            LOGGER.warn("Could not log message of " + loggedMethod.getMethod(), e);
+        }
+    }
+
+    private void reportDroppedMessages() {
+        long dropped = droppedCount.sum();
+        if (dropped != reportedDroppedCount) {
+            LOGGER.warn("Dropped " + (dropped - reportedDroppedCount) + " log messages, "
+                    + dropped + " in total, buffer of " + slots.length + " was full");
+            reportedDroppedCount = dropped;
+        }
+    }
+
+    private static final class Slot {
+        private volatile long sequence;
+
+        private LogHandle logHandle;
+        private LogMessageTemplate template;
+        private LoggedMethod loggedMethod;
+        private Object[] arguments;
+        private Object returnValue;
+        private long executionTime;
+        private Throwable throwable;
+
+        private Slot(long sequence) {
+            this.sequence = sequence;
+        }
+
+        private void clear() {
+            logHandle = null;
+            template = null;
+            loggedMethod = null;
+            arguments = null;
+            returnValue = null;
+            throwable = null;
+        }
+    }
+}
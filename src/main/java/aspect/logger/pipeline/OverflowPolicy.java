@@ -0,0 +1,19 @@
+package aspect.logger.pipeline;
+
+/**
+ * What {@link AsyncLogPipeline} does with a message when the consumer falls behind.
+ */
+public enum OverflowPolicy {
+    /**
+     * Drop messages while the buffer is full.
+     */
+    DROP,
+    /**
+     * Wait on the calling thread until there is room.
+     */
+    BLOCK,
+    /**
+     * Once the buffer is three quarters full, keep exceptions and one in 8 other messages; drop when full.
+     */
+    SAMPLE
+}
@@ -1,7 +1,12 @@
 package aspect.logger.properties;
 
+import aspect.logger.LogFormat;
 import aspect.logger.LogLevel;
+import aspect.logger.PropagatedExceptionLogging;
+import aspect.logger.backend.LogBackendType;
+import aspect.logger.pipeline.OverflowPolicy;
 
+import static aspect.logger.CustomizableLoggedInterceptor.DEFAULT_CANCEL_MESSAGE;
 import static aspect.logger.CustomizableLoggedInterceptor.DEFAULT_ENTER_MESSAGE;
 import static aspect.logger.CustomizableLoggedInterceptor.DEFAULT_EXCEPTION_MESSAGE;
 import static aspect.logger.CustomizableLoggedInterceptor.DEFAULT_EXIT_MESSAGE;
@@ -19,8 +24,58 @@ public class LoggedInterceptorProperties {
     private String exceptionMessage = DEFAULT_EXCEPTION_MESSAGE;
     private LogLevel exceptionMessageLogLevel = LogLevel.ERROR;
 
+    //logged at exitMessageLogLevel when a Mono/Flux subscription is cancelled
+    private String cancelMessage = DEFAULT_CANCEL_MESSAGE;
+
+    //JSON and KEY_VALUE write fixed fields instead of the messages above
+    private LogFormat logFormat = LogFormat.TEXT;
+
     private boolean useDynamicLogger = true;
 
+    private boolean lazyMessageRendering = false;
+
+    private boolean logAsyncResults = true;
+
+    //negative value means no limit
+    private int maxValueLength = -1;
+    private int maxCollectionElements = -1;
+    private int maxMessageLength = -1;
+
+    //log one call out of sampleEvery, or samplePercentage of calls; exceptions are always logged
+    private int sampleEvery = 1;
+    private double samplePercentage = 100;
+
+    //when not negative, enter is not logged and exit only for calls taking at least this many milliseconds
+    private long slowCallThreshold = -1;
+
+    //record per-method latency histograms, exported to Micrometer and the "logged" actuator endpoint when present
+    private boolean recordLatency = false;
+    //percentiles cover the calls of the last one to two windows of latencyPercentileWindow milliseconds
+    private long latencyPercentileWindow = 60_000;
+
+    //render and log messages on a background thread, fed through a ring buffer of asyncBufferSize slots
+    private boolean asyncLogging = false;
+    private int asyncBufferSize = 8192;
+    private OverflowPolicy asyncOverflowPolicy = OverflowPolicy.DROP;
+
+    //when positive, an exception repeated within this many milliseconds is counted and summarized instead of logged
+    private long exceptionAggregationWindow = -1;
+    private int maxAggregatedExceptions = 1024;
+
+    //how outer logged calls log an exception already logged by a nested one on the same thread
+    private PropagatedExceptionLogging propagatedExceptionLogging = PropagatedExceptionLogging.FULL;
+
+    //when positive, messages of calls within an outermost logged call are kept in a per-thread buffer of this many
+    //and logged, whatever their level, only if an exception is logged within that call
+    private int tailBufferSize = -1;
+
+    //count calls into one summary line per method and summaryInterval milliseconds instead of logging each of them
+    private boolean summary = false;
+    private long summaryInterval = 60_000;
+
+    //backend logged methods log straight to, bypassing commons-logging
+    private LogBackendType logBackend = LogBackendType.AUTO;
+
     public LoggedInterceptorProperties(){
     }
 
@@ -72,6 +127,22 @@ public class LoggedInterceptorProperties {
         this.exceptionMessageLogLevel = exceptionMessageLogLevel;
     }
 
+    public String getCancelMessage() {
+        return cancelMessage;
+    }
+
+    public void setCancelMessage(String cancelMessage) {
+        this.cancelMessage = cancelMessage;
+    }
+
+    public LogFormat getLogFormat() {
+        return logFormat;
+    }
+
+    public void setLogFormat(LogFormat logFormat) {
+        this.logFormat = logFormat;
+    }
+
     public boolean isUseDynamicLogger() {
         return useDynamicLogger;
     }
@@ -79,4 +150,164 @@ public class LoggedInterceptorProperties {
     public void setUseDynamicLogger(boolean useDynamicLogger) {
         this.useDynamicLogger = useDynamicLogger;
     }
+
+    public boolean isLazyMessageRendering() {
+        return lazyMessageRendering;
+    }
+
+    public void setLazyMessageRendering(boolean lazyMessageRendering) {
+        this.lazyMessageRendering = lazyMessageRendering;
+    }
+
+    public int getMaxValueLength() {
+        return maxValueLength;
+    }
+
+    public void setMaxValueLength(int maxValueLength) {
+        this.maxValueLength = maxValueLength;
+    }
+
+    public int getMaxCollectionElements() {
+        return maxCollectionElements;
+    }
+
+    public void setMaxCollectionElements(int maxCollectionElements) {
+        this.maxCollectionElements = maxCollectionElements;
+    }
+
+    public int getMaxMessageLength() {
+        return maxMessageLength;
+    }
+
+    public void setMaxMessageLength(int maxMessageLength) {
+        this.maxMessageLength = maxMessageLength;
+    }
+
+    public boolean isLogAsyncResults() {
+        return logAsyncResults;
+    }
+
+    public void setLogAsyncResults(boolean logAsyncResults) {
+        this.logAsyncResults = logAsyncResults;
+    }
+
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = sampleEvery;
+    }
+
+    public double getSamplePercentage() {
+        return samplePercentage;
+    }
+
+    public void setSamplePercentage(double samplePercentage) {
+        this.samplePercentage = samplePercentage;
+    }
+
+    public long getSlowCallThreshold() {
+        return slowCallThreshold;
+    }
+
+    public void setSlowCallThreshold(long slowCallThreshold) {
+        this.slowCallThreshold = slowCallThreshold;
+    }
+
+    public boolean isRecordLatency() {
+        return recordLatency;
+    }
+
+    public void setRecordLatency(boolean recordLatency) {
+        this.recordLatency = recordLatency;
+    }
+
+    public long getLatencyPercentileWindow() {
+        return latencyPercentileWindow;
+    }
+
+    public void setLatencyPercentileWindow(long latencyPercentileWindow) {
+        this.latencyPercentileWindow = latencyPercentileWindow;
+    }
+
+    public boolean isAsyncLogging() {
+        return asyncLogging;
+    }
+
+    public void setAsyncLogging(boolean asyncLogging) {
+        this.asyncLogging = asyncLogging;
+    }
+
+    public int getAsyncBufferSize() {
+        return asyncBufferSize;
+    }
+
+    public void setAsyncBufferSize(int asyncBufferSize) {
+        this.asyncBufferSize = asyncBufferSize;
+    }
+
+    public OverflowPolicy getAsyncOverflowPolicy() {
+        return asyncOverflowPolicy;
+    }
+
+    public void setAsyncOverflowPolicy(OverflowPolicy asyncOverflowPolicy) {
+        this.asyncOverflowPolicy = asyncOverflowPolicy;
+    }
+
+    public long getExceptionAggregationWindow() {
+        return exceptionAggregationWindow;
+    }
+
+    public void setExceptionAggregationWindow(long exceptionAggregationWindow) {
+        this.exceptionAggregationWindow = exceptionAggregationWindow;
+    }
+
+    public int getMaxAggregatedExceptions() {
+        return maxAggregatedExceptions;
+    }
+
+    public void setMaxAggregatedExceptions(int maxAggregatedExceptions) {
+        this.maxAggregatedExceptions = maxAggregatedExceptions;
+    }
+
+    public PropagatedExceptionLogging getPropagatedExceptionLogging() {
+        return propagatedExceptionLogging;
+    }
+
+    public void setPropagatedExceptionLogging(PropagatedExceptionLogging propagatedExceptionLogging) {
+        this.propagatedExceptionLogging = propagatedExceptionLogging;
+    }
+
+    public int getTailBufferSize() {
+        return tailBufferSize;
+    }
+
+    public void setTailBufferSize(int tailBufferSize) {
+        this.tailBufferSize = tailBufferSize;
+    }
+
+    public boolean isSummary() {
+        return summary;
+    }
+
+    public void setSummary(boolean summary) {
+        this.summary = summary;
+    }
+
+    public long getSummaryInterval() {
+        return summaryInterval;
+    }
+
+    public void setSummaryInterval(long summaryInterval) {
+        this.summaryInterval = summaryInterval;
+    }
+
+    public LogBackendType getLogBackend() {
+        return logBackend;
+    }
+
+    public void setLogBackend(LogBackendType logBackend) {
+        this.logBackend = logBackend;
+    }
 }
@@ -0,0 +1,36 @@
+package aspect.logger.sampling;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Logs every n-th call.
+ * Calls are counted on striped counters chosen by thread id, each padded to its own cache line,
+ * so many threads hitting the same method do not contend on a single atomic.
+ */
+public class EveryNthSampler implements Sampler {
+
+    private static final int PADDING = 16;
+    private static final int MAX_STRIPES = 64;
+
+    private final int sampleEvery;
+    private final int stripeMask;
+    private final AtomicLongArray counters;
+
+    public EveryNthSampler(int sampleEvery) {
+        this.sampleEvery = sampleEvery;
+        int stripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+        this.stripeMask = stripes - 1;
+        this.counters = new AtomicLongArray(stripes * PADDING);
+    }
+
+    @Override
+    public boolean sample() {
+        long threadId = Thread.currentThread().getId();
+        int stripe = (int) ((threadId * 0x9E3779B97F4A7C15L) >>> 32) & stripeMask;
+        return counters.getAndIncrement(stripe * PADDING) % sampleEvery == 0;
+    }
+
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+}
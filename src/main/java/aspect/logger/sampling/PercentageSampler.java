@@ -0,0 +1,26 @@
+package aspect.logger.sampling;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs a random percentage of calls, without any state shared between threads.
+ */
+public class PercentageSampler implements Sampler {
+
+    private final double samplePercentage;
+    private final double threshold;
+
+    public PercentageSampler(double samplePercentage) {
+        this.samplePercentage = samplePercentage;
+        this.threshold = samplePercentage / 100;
+    }
+
+    @Override
+    public boolean sample() {
+        return ThreadLocalRandom.current().nextDouble() < threshold;
+    }
+
+    public double getSamplePercentage() {
+        return samplePercentage;
+    }
+}
@@ -0,0 +1,30 @@
+package aspect.logger.sampling;
+
+import org.springframework.util.Assert;
+
+/**
+ * Decides whether a call is logged, before anything about the call is rendered.
+ * Exceptions are logged regardless of the decision.
+ */
+public interface Sampler {
+
+    boolean sample();
+
+    /**
+     * @param sampleEvery log one call out of this many, 1 or less to disable
+     * @param samplePercentage percentage of calls to log, 100 or more to disable
+     * @return null if every call is to be logged
+     */
+    static Sampler of(int sampleEvery, double samplePercentage) {
+        boolean every = sampleEvery > 1;
+        boolean percentage = samplePercentage < 100;
+        Assert.isTrue(!(every && percentage), "Only one of sampleEvery and samplePercentage may be set");
+        if (every) {
+            return new EveryNthSampler(sampleEvery);
+        } else if (percentage) {
+            return new PercentageSampler(samplePercentage);
+        } else {
+            return null;
+        }
+    }
+}
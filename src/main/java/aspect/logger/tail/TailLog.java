@@ -0,0 +1,165 @@
+package aspect.logger.tail;
+
+import aspect.logger.LogLevel;
+import aspect.logger.LogMessageTemplate;
+import aspect.logger.LoggedMethod;
+import aspect.logger.TraceData;
+import aspect.logger.backend.LogHandle;
+import org.springframework.util.Assert;
+
+/**
+ * Keeps the messages of the logged calls a thread makes within its outermost logged call, unrendered,
+ * in a fixed-size per-thread ring of reusable records, whatever their log level.
+ * When the outermost call ends they are dropped, unless an exception was logged within it: then they are rendered
+ * and logged as one block, through the log handle and with the throwable of the first exception.
+ * Arguments and return values are kept by reference, so they are rendered as they are when the block is logged.
+ */
+public class TailLog {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final int capacity;
+    private final ThreadLocal<Buffer> buffers;
+
+    public TailLog(int capacity) {
+        Assert.isTrue(capacity > 0, "capacity must be positive");
+        this.capacity = capacity;
+        this.buffers = ThreadLocal.withInitial(() -> new Buffer(capacity));
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void enterFrame() {
+        Buffer buffer = buffers.get();
+        if (!buffer.flushing) {
+            buffer.depth++;
+        }
+    }
+
+    /**
+     * Ends a logged call, logging the block if it is the outermost one and an exception was logged within it.
+     */
+    public void exitFrame() {
+        Buffer buffer = buffers.get();
+        if (buffer.flushing || --buffer.depth > 0) {
+            return;
+        }
+        buffer.flushing = true;
+        try {
+            if (buffer.failureLogHandle != null) {
+                buffer.failureLogHandle.log(buffer.render(), buffer.failure);
+            }
+        } finally {
+            buffer.clear();
+            buffer.flushing = false;
+        }
+    }
+
+    /**
+     * @return true if the current thread is within a logged call, so messages are to be recorded instead of logged
+     */
+    public boolean isRecording() {
+        return buffers.get().depth > 0;
+    }
+
+    public void record(LogLevel logLevel, LogMessageTemplate template, LoggedMethod loggedMethod,
+                       Object[] arguments, Object returnValue, long executionTime) {
+        buffers.get().add(logLevel, template, loggedMethod, arguments, returnValue, executionTime);
+    }
+
+    /**
+     * Marks the current outermost call as failed; only the first exception is kept.
+     */
+    public void recordFailure(LogHandle logHandle, Throwable throwable) {
+        Buffer buffer = buffers.get();
+        if (buffer.failureLogHandle == null) {
+            buffer.failureLogHandle = logHandle;
+            buffer.failure = throwable;
+        }
+    }
+
+    private static final class Buffer {
+
+        private final Record[] records;
+        private int next;
+        private int size;
+        private long dropped;
+
+        private int depth;
+        private boolean flushing;
+
+        private LogHandle failureLogHandle;
+        private Throwable failure;
+
+        Buffer(int capacity) {
+            records = new Record[capacity];
+            for (int i = 0; i < capacity; i++) {
+                records[i] = new Record();
+            }
+        }
+
+        void add(LogLevel logLevel, LogMessageTemplate template, LoggedMethod loggedMethod,
+                 Object[] arguments, Object returnValue, long executionTime) {
+            Record record = records[next];
+            record.logLevel = logLevel;
+            record.template = template;
+            record.loggedMethod = loggedMethod;
+            record.arguments = arguments;
+            record.returnValue = returnValue;
+            record.executionTime = executionTime;
+            next = next + 1 == records.length ? 0 : next + 1;
+            if (size < records.length) {
+                size++;
+            } else {
+                dropped++;
+            }
+        }
+
+        String render() {
+            StringBuilder builder = new StringBuilder(size * 64);
+            builder.append("Logged calls up to the exception:");
+            if (dropped > 0) {
+                builder.append(LINE_SEPARATOR).append("... ").append(dropped).append(" earlier messages dropped");
+            }
+            int first = size < records.length ? 0 : next;
+            for (int i = 0; i < size; i++) {
+                Record record = records[(first + i) % records.length];
+                LoggedMethod loggedMethod = record.loggedMethod;
+                builder.append(LINE_SEPARATOR).append(record.logLevel).append(' ');
+                record.template.renderTo(builder, new TraceData(loggedMethod.getTargetClass(), loggedMethod.getMethod(),
+                        record.arguments, loggedMethod.getArgumentMask(), record.returnValue, record.executionTime));
+            }
+            return builder.toString();
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                records[i].clear();
+            }
+            next = 0;
+            size = 0;
+            dropped = 0;
+            depth = 0;
+            failureLogHandle = null;
+            failure = null;
+        }
+    }
+
+    private static final class Record {
+        private LogLevel logLevel;
+        private LogMessageTemplate template;
+        private LoggedMethod loggedMethod;
+        private Object[] arguments;
+        private Object returnValue;
+        private long executionTime;
+
+        void clear() {
+            template = null;
+            loggedMethod = null;
+            arguments = null;
+            returnValue = null;
+        }
+    }
+}
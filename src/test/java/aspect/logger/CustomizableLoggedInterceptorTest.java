@@ -1,17 +1,24 @@
 package aspect.logger;
 
+import aspect.logger.aggregation.MethodSummary;
+import aspect.logger.metrics.LatencyHistogram;
+import aspect.logger.metrics.MethodLatencyRegistry;
 import aspect.logger.properties.LoggedInterceptorProperties;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.lang.reflect.Method;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -76,6 +83,228 @@ public class CustomizableLoggedInterceptorTest {
         }
     }
 
+    @Test
+    public void shouldPassLazyMessageRenderedOnlyOnDemand() throws Throwable {
+        when(logger.isDebugEnabled()).thenReturn(true);
+        AtomicInteger toStringCalls = new AtomicInteger();
+        Object argument = new Object() {
+            @Override
+            public String toString() {
+                return "lazy" + toStringCalls.incrementAndGet();
+            }
+        };
+        when(methodInvocation.getArguments()).thenReturn(new Object[]{argument});
+        interceptor.setLazyMessageRendering(true);
+
+        interceptor.invokeUnderTrace(methodInvocation, logger);
+
+        ArgumentCaptor<Object> message = ArgumentCaptor.forClass(Object.class);
+        verify(logger).debug(message.capture(), (Throwable) isNull());
+        assertThat(message.getValue()).isInstanceOf(LazyLogMessage.class);
+        assertThat(toStringCalls.get()).isZero();
+
+        assertThat(message.getValue().toString()).isEqualTo("Finished deepEquals(lazy1), returned null");
+        assertThat(message.getValue().toString()).isEqualTo("Finished deepEquals(lazy1), returned null");
+        assertThat(toStringCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCacheLoggedMethodUntilReconfigured() {
+        LoggedMethod loggedMethod = interceptor.getLoggedMethod(methodInvocation);
+
+        assertThat(interceptor.getLoggedMethod(methodInvocation)).isSameAs(loggedMethod);
+        assertThat(loggedMethod.getLogger()).isSameAs(interceptor.getLoggedMethod(methodInvocation).getLogger());
+        assertThat(loggedMethod.getExitMessageLogLevel()).isEqualTo(LogLevel.DEBUG);
+
+        interceptor.setExitMessageLogLevel(LogLevel.INFO);
+
+        LoggedMethod reconfigured = interceptor.getLoggedMethod(methodInvocation);
+        assertThat(reconfigured).isNotSameAs(loggedMethod);
+        assertThat(reconfigured.getExitMessageLogLevel()).isEqualTo(LogLevel.INFO);
+    }
+
+    @Test
+    public void shouldResolveLoggedMethodAgainWhenCancelMessageChanges() {
+        LoggedMethod loggedMethod = interceptor.getLoggedMethod(methodInvocation);
+
+        interceptor.setCancelMessage("Gave up on $[methodName]");
+
+        assertThat(interceptor.getLoggedMethod(methodInvocation)).isNotSameAs(loggedMethod);
+    }
+
+    @Test
+    public void shouldTakeSamplingFromMostSpecificOverride() {
+        interceptor.setOverride("java.util", samplingOverride(null, 5d));
+        interceptor.setOverride("java.util.Objects.deepEquals", samplingOverride(10, null));
+
+        LoggedMethod loggedMethod = interceptor.getLoggedMethod(methodInvocation);
+
+        int sampled = 0;
+        for (int i = 0; i < 100; i++) {
+            sampled += loggedMethod.sample() ? 1 : 0;
+        }
+        assertThat(sampled).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldKeepOverridesWhenInvalidForPreparedMethod() throws NoSuchMethodException {
+        CustomizableLoggedInterceptor interceptor = new RejectingOverrideInterceptor(properties);
+        interceptor.prepareLoggedMethod(methodInvocation.getMethod(), Objects.class);
+
+        try {
+            interceptor.setOverride("java.util.Objects", samplingOverride(10, null));
+            fail("Invalid override expected to be rejected");
+        } catch (IllegalArgumentException expected) {
+            assertThat(interceptor.getOverrides()).isEmpty();
+            assertThat(interceptor.getLoggedMethod(methodInvocation).isEnabled()).isTrue();
+        }
+    }
+
+    @Test
+    public void shouldCallUnloggedWhenSettingsAreInvalid() throws Throwable {
+        CustomizableLoggedInterceptor interceptor = new RejectingOverrideInterceptor(properties);
+        interceptor.setOverride("java.util.Objects", samplingOverride(10, null));
+        when(methodInvocation.proceed()).thenReturn(true);
+
+        assertThat(interceptor.invoke(methodInvocation)).isEqualTo(true);
+        assertThat(interceptor.getLoggedMethod(methodInvocation).isEnabled()).isFalse();
+    }
+
+    @Test
+    public void shouldResolvePreparedMethodOnSettingsChangeInsteadOfCall() throws NoSuchMethodException {
+        AtomicInteger created = new AtomicInteger();
+        CustomizableLoggedInterceptor interceptor = new CustomizableLoggedInterceptor(properties) {
+            @Override
+            protected LoggedMethod createLoggedMethod(Method method, Class<?> targetClass) {
+                created.incrementAndGet();
+                return super.createLoggedMethod(method, targetClass);
+            }
+        };
+        Method method = Objects.class.getMethod("deepEquals", Object.class, Object.class);
+
+        interceptor.prepareLoggedMethod(method, Objects.class);
+        interceptor.setExitMessageLogLevel(LogLevel.INFO);
+        assertThat(created.get()).isEqualTo(2);
+
+        LoggedMethod loggedMethod = interceptor.getLoggedMethod(methodInvocation);
+        assertThat(created.get()).isEqualTo(2);
+        assertThat(loggedMethod.getExitMessageLogLevel()).isEqualTo(LogLevel.INFO);
+    }
+
+    @Test
+    public void shouldNotLogCallFasterThanSlowCallThreshold() throws Throwable {
+        interceptor.setSlowCallThreshold(10_000);
+
+        interceptor.invokeUnderTrace(methodInvocation, logger);
+
+        verifyZeroInteractions(logger);
+    }
+
+    @Test
+    public void shouldLogOnlyExitOfSlowCall() throws Throwable {
+        when(logger.isDebugEnabled()).thenReturn(true);
+        when(methodInvocation.proceed()).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return true;
+        });
+        interceptor.setSlowCallThreshold(10);
+
+        interceptor.invokeUnderTrace(methodInvocation, logger);
+
+        verify(logger).isDebugEnabled();
+        verify(logger).debug("Finished deepEquals(1,String argument), returned true", null);
+        verifyNoMoreInteractions(logger);
+    }
+
+    @Test
+    public void shouldCountSummarizedCallsInsteadOfLoggingThem() throws Throwable {
+        interceptor.setSummary(true);
+
+        interceptor.invokeUnderTrace(methodInvocation, logger);
+        interceptor.invokeUnderTrace(methodInvocation, logger);
+
+        verifyZeroInteractions(logger);
+        MethodSummary summary = interceptor.getLoggedMethod(methodInvocation).getSummary();
+        assertThat(summary.getName()).isEqualTo("java.util.Objects.deepEquals(java.lang.Object,java.lang.Object)");
+    }
+
+    @Test
+    public void shouldRecordLatencyOfCallsThatAreNotLogged() throws Throwable {
+        MethodLatencyRegistry latencyRegistry = new MethodLatencyRegistry();
+        interceptor.setLatencyRegistry(latencyRegistry);
+
+        interceptor.invokeUnderTrace(methodInvocation, logger);
+        when(methodInvocation.proceed()).thenThrow(new IllegalStateException());
+        try {
+            interceptor.invokeUnderTrace(methodInvocation, logger);
+        } catch (IllegalStateException expected) {
+        }
+
+        assertThat(latencyRegistry.getHistograms()).hasSize(1);
+        LatencyHistogram histogram = latencyRegistry.getHistograms().iterator().next();
+        assertThat(histogram.getName()).isEqualTo("java.util.Objects.deepEquals(java.lang.Object,java.lang.Object)");
+        assertThat(histogram.getCount()).isEqualTo(2);
+        assertThat(histogram.getErrorCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldLogPropagatedExceptionWithoutStackTrace() throws Throwable {
+        when(logger.isErrorEnabled()).thenReturn(true);
+        RuntimeException runtimeException = new RuntimeException("nested error");
+        when(methodInvocation.proceed()).thenThrow(runtimeException);
+        interceptor.setPropagatedExceptionLogging(PropagatedExceptionLogging.MESSAGE_ONLY);
+
+        invokeIgnoringException(callingInvocation(methodInvocation));
+
+        verify(logger).error("Exception in deepEquals(1,String argument)", runtimeException);
+        verify(logger).error("Exception propagated through equals: java.lang.RuntimeException: nested error", null);
+        verify(logger, never()).error("Exception in equals(2,outer)", runtimeException);
+    }
+
+    @Test
+    public void shouldLogExceptionOnlyOnce() throws Throwable {
+        when(logger.isErrorEnabled()).thenReturn(true);
+        RuntimeException runtimeException = new RuntimeException("nested error");
+        when(methodInvocation.proceed()).thenThrow(runtimeException);
+        interceptor.setPropagatedExceptionLogging(PropagatedExceptionLogging.NONE);
+
+        invokeIgnoringException(callingInvocation(callingInvocation(methodInvocation)));
+
+        verify(logger).error("Exception in deepEquals(1,String argument)", runtimeException);
+        verify(logger, never()).error(eq("Exception in equals(2,outer)"), any(Throwable.class));
+    }
+
+    @Test
+    public void shouldLogSameExceptionInFullInLaterCall() throws Throwable {
+        when(logger.isErrorEnabled()).thenReturn(true);
+        RuntimeException preallocated = new RuntimeException("reused error");
+        when(methodInvocation.proceed()).thenThrow(preallocated);
+        interceptor.setPropagatedExceptionLogging(PropagatedExceptionLogging.NONE);
+
+        invokeIgnoringException(callingInvocation(methodInvocation));
+        invokeIgnoringException(methodInvocation);
+
+        verify(logger, times(2)).error("Exception in deepEquals(1,String argument)", preallocated);
+    }
+
+    /**
+     * @return call of a logged method whose body calls the given logged method
+     */
+    private MethodInvocation callingInvocation(MethodInvocation nested) throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getMethod()).thenReturn(Objects.class.getMethod("equals", Object.class, Object.class));
+        when(invocation.getArguments()).thenReturn(new Object[]{2, "outer"});
+        when(invocation.proceed()).thenAnswer(call -> interceptor.invokeUnderTrace(nested, logger));
+        return invocation;
+    }
+
+    private void invokeIgnoringException(MethodInvocation invocation) throws Throwable {
+        try {
+            interceptor.invokeUnderTrace(invocation, logger);
+        } catch (RuntimeException expected) {
+        }
+    }
+
     @Test
     public void shouldReturnLogIsEnabled() {
         assertThat(interceptor.isLogEnabled(logger)).isTrue();
@@ -155,4 +384,26 @@ public class CustomizableLoggedInterceptorTest {
     public void shouldThrowExceptionOnExceptionLogLevelIsNull() {
         interceptor.setExceptionMessageLogLevel(null);
     }
-}
\ No newline at end of file
+
+    private static LoggedOverride samplingOverride(Integer sampleEvery, Double samplePercentage) {
+        return new LoggedOverride(null, null, null, null, null, null, null, sampleEvery, samplePercentage, null);
+    }
+
+    /**
+     * Fails to resolve any method while an override of {@link Objects} is set.
+     */
+    private static class RejectingOverrideInterceptor extends CustomizableLoggedInterceptor {
+
+        RejectingOverrideInterceptor(LoggedInterceptorProperties properties) {
+            super(properties);
+        }
+
+        @Override
+        protected LoggedMethod createLoggedMethod(Method method, Class<?> targetClass) {
+            if (getOverrides().containsKey("java.util.Objects")) {
+                throw new IllegalArgumentException("Invalid settings");
+            }
+            return super.createLoggedMethod(method, targetClass);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package aspect.logger;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+
+import static aspect.logger.CustomizableLoggedInterceptor.DEFAULT_EXIT_MESSAGE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LogMessageTemplateTest {
+
+    private static final Object[] ARGUMENTS = new Object[]{1, null, "String argument"};
+    private static final Method DEEP_EQUALS = method(Objects.class, "deepEquals", Object.class, Object.class);
+    private static final Method RUN = method(Thread.class, "run");
+
+    @Test
+    public void shouldRenderAllPlaceholders() {
+        LogMessageTemplate template = LogMessageTemplate.compile(
+                "$[methodName]($[arguments]) = $[returnValue] in $[invocationTime]ms");
+
+        String message = template.render(new TraceData(DEEP_EQUALS, ARGUMENTS, true, 15));
+
+        assertThat(message).isEqualTo("deepEquals(1,null,String argument) = true in 15ms");
+    }
+
+    @Test
+    public void shouldRenderVoidAndNullReturnValue() {
+        LogMessageTemplate template = LogMessageTemplate.compile("returned $[returnValue]");
+
+        assertThat(template.render(new TraceData(RUN, new Object[0], null, 0))).isEqualTo("returned void");
+        assertThat(template.render(new TraceData(DEEP_EQUALS, ARGUMENTS, null, 0))).isEqualTo("returned null");
+    }
+
+    @Test
+    public void shouldRenderTemplateWithoutPlaceholders() {
+        LogMessageTemplate template = LogMessageTemplate.compile("constant");
+
+        assertThat(template.render(new TraceData(DEEP_EQUALS, ARGUMENTS, null, 0))).isEqualTo("constant");
+    }
+
+    @Test
+    public void shouldRenderReentrantCall() {
+        LogMessageTemplate template = LogMessageTemplate.compile(DEFAULT_EXIT_MESSAGE);
+        Object reentrant = new Object() {
+            @Override
+            public String toString() {
+                return template.render(new TraceData(DEEP_EQUALS, new Object[]{"inner"}, "x", 0));
+            }
+        };
+
+        String message = template.render(new TraceData(DEEP_EQUALS, new Object[]{reentrant}, "outer", 0));
+
+        assertThat(message).isEqualTo("Finished deepEquals(Finished deepEquals(inner), returned x), returned outer");
+    }
+
+    private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package aspect.logger;
+
+import aspect.logger.properties.LoggedInterceptorProperties;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.AppenderRef;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes allocated per call of a logged proxy, beyond what the same proxy allocates with an advice doing nothing.
+ * Measured with {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} after a warm-up long enough
+ * for the JIT to compile the call path; each scenario fails when its budget is exceeded.
+ */
+public class LoggedAllocationTest {
+
+    private static final int WARM_UP_CALLS = 50_000;
+    private static final int MEASURED_CALLS = 10_000;
+    //the lowest round is kept, earlier ones may still run code the JIT is compiling in the background
+    private static final int MEASURED_ROUNDS = 10;
+
+    //the trace data handed over to the backend, rendering itself goes into log4j2's reusable buffers
+    private static final long MESSAGE_BUDGET = 64;
+    //cut rendering of the large values, independent of their size
+    private static final long LARGE_ARGUMENTS_BUDGET = 2048;
+
+    private static final String LOGGER_NAME = TestService.class.getName();
+    private static final String SUBCLASS_LOGGER_NAME = TestSubService.class.getName();
+
+    private static final Object ARGUMENT = "argument";
+    private static final Object RESULT = "result";
+    private static final RuntimeException FAILURE = new IllegalStateException("failure");
+
+    private static final List<Integer> LARGE_COLLECTION = new ArrayList<>();
+    private static final String LARGE_STRING;
+
+    static {
+        for (int i = 0; i < 10_000; i++) {
+            LARGE_COLLECTION.add(i);
+        }
+        char[] chars = new char[100_000];
+        Arrays.fill(chars, 'x');
+        LARGE_STRING = new String(chars);
+    }
+
+    private final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final AbstractAppender appender = new AbstractAppender("NoOpAppender", null, null) {
+        @Override
+        public void append(LogEvent event) {
+        }
+    };
+
+    private final LoggedInterceptorProperties properties = new LoggedInterceptorProperties();
+
+    @Logged
+    public static class TestService {
+
+        public Object call(Object argument) {
+            return RESULT;
+        }
+
+        public Object fail(Object argument) {
+            throw FAILURE;
+        }
+
+        public Object callLarge(Object collection, Object string) {
+            return collection;
+        }
+    }
+
+    public static class TestSubService extends TestService {
+    }
+
+    @Before
+    public void before() {
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        appender.start();
+        setLogLevel(Level.TRACE);
+    }
+
+    @After
+    public void after() {
+        LoggerContext loggerContext = (LoggerContext) LogManager.getContext(false);
+        loggerContext.getConfiguration().removeLogger(LOGGER_NAME);
+        loggerContext.getConfiguration().removeLogger(SUBCLASS_LOGGER_NAME);
+        loggerContext.updateLoggers();
+        appender.stop();
+    }
+
+    @Test
+    public void shouldNotAllocateWhenLevelIsDisabled() {
+        setLogLevel(Level.WARN);
+
+        assertAllocatedPerCall(service -> service.call(ARGUMENT), 0);
+    }
+
+    @Test
+    public void shouldNotAllocateWhenLevelIsDisabledOnInheritedMethod() {
+        setLogLevel(Level.WARN);
+        CustomizableLoggedInterceptor interceptor = new CustomizableLoggedInterceptor(properties);
+        //the method is cached for the parent class first, the subclass takes the other lookup path
+        proxy(new TestService(), interceptor).call(ARGUMENT);
+
+        assertAllocatedPerCall(new TestSubService(), interceptor, service -> service.call(ARGUMENT), 0);
+    }
+
+    @Test
+    public void shouldStayWithinBudgetLoggingEnter() {
+        properties.setExitMessageLogLevel(LogLevel.OFF);
+
+        assertAllocatedPerCall(service -> service.call(ARGUMENT), MESSAGE_BUDGET);
+    }
+
+    @Test
+    public void shouldStayWithinBudgetLoggingExit() {
+        properties.setEnterMessageLogLevel(LogLevel.OFF);
+
+        assertAllocatedPerCall(service -> service.call(ARGUMENT), MESSAGE_BUDGET);
+    }
+
+    @Test
+    public void shouldStayWithinBudgetLoggingException() {
+        properties.setEnterMessageLogLevel(LogLevel.OFF);
+
+        assertAllocatedPerCall(service -> {
+            try {
+                service.fail(ARGUMENT);
+            } catch (IllegalStateException expected) {
+                //logged by the interceptor
+            }
+        }, MESSAGE_BUDGET);
+    }
+
+    @Test
+    public void shouldStayWithinBudgetLoggingLargeArguments() {
+        properties.setMaxValueLength(100);
+        properties.setMaxCollectionElements(10);
+
+        assertAllocatedPerCall(service -> service.callLarge(LARGE_COLLECTION, LARGE_STRING), LARGE_ARGUMENTS_BUDGET);
+    }
+
+    private void assertAllocatedPerCall(Consumer<TestService> call, long budget) {
+        assertAllocatedPerCall(new TestService(), new CustomizableLoggedInterceptor(properties), call, budget);
+    }
+
+    private void assertAllocatedPerCall(TestService target, CustomizableLoggedInterceptor interceptor,
+                                        Consumer<TestService> call, long budget) {
+        TestService baseline = proxy(target, (MethodInterceptor) invocation -> invocation.proceed());
+        TestService logged = proxy(target, interceptor);
+
+        long baselineBytes = allocatedPerCall(baseline, call);
+        long loggedBytes = allocatedPerCall(logged, call);
+
+        assertThat(loggedBytes - baselineBytes)
+                .as("bytes allocated per call beyond the proxy's own %d bytes", baselineBytes)
+                .isLessThanOrEqualTo(budget);
+    }
+
+    private long allocatedPerCall(TestService service, Consumer<TestService> call) {
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            call.accept(service);
+        }
+        long threadId = Thread.currentThread().getId();
+        long lowest = Long.MAX_VALUE;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long before = threadMXBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_CALLS; i++) {
+                call.accept(service);
+            }
+            lowest = Math.min(lowest, (threadMXBean.getThreadAllocatedBytes(threadId) - before) / MEASURED_CALLS);
+        }
+        return lowest;
+    }
+
+    private static TestService proxy(TestService target, MethodInterceptor interceptor) {
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        return (TestService) proxyFactory.getProxy();
+    }
+
+    private void setLogLevel(Level level) {
+        LoggerContext loggerContext = (LoggerContext) LogManager.getContext(false);
+        Configuration configuration = loggerContext.getConfiguration();
+        for (String loggerName : new String[]{LOGGER_NAME, SUBCLASS_LOGGER_NAME}) {
+            configuration.removeLogger(loggerName);
+            LoggerConfig loggerConfig = LoggerConfig.createLogger(false, level, loggerName, "false",
+                    new AppenderRef[0], null, configuration, null);
+            loggerConfig.addAppender(appender, null, null);
+            configuration.addLogger(loggerName, loggerConfig);
+        }
+        loggerContext.updateLoggers();
+    }
+}
@@ -0,0 +1,127 @@
+package aspect.logger;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        webEnvironment = NONE,
+        classes = LoggedAsyncTest.LoggedTestConfiguration.class
+)
+public class LoggedAsyncTest {
+
+    public static final String LOGGER_NAME = TestService.class.getName();
+
+    @Autowired
+    protected TestService testService;
+
+    protected TestAppender appender;
+
+    @EnableAutoConfiguration
+    public static class LoggedTestConfiguration {
+        @Bean
+        public TestService testService() {
+            return new TestService();
+        }
+    }
+
+    @Logged
+    public static class TestService {
+
+        static CompletableFuture<String> completableFuture;
+        static SettableListenableFuture<String> listenableFuture;
+
+        public CompletableFuture<String> completable(String parameter) {
+            return completableFuture;
+        }
+
+        public ListenableFuture<String> listenable(String parameter) {
+            return listenableFuture;
+        }
+    }
+
+    @Before
+    public void before() {
+        Configurator.setLevel(LOGGER_NAME, Level.DEBUG);
+        appender = new TestAppender();
+        getLoggerConfig().addAppender(appender, Level.ALL, null);
+        TestService.completableFuture = new CompletableFuture<>();
+        TestService.listenableFuture = new SettableListenableFuture<>();
+    }
+
+    @After
+    public void after() {
+        getLoggerConfig().removeAppender(appender.getName());
+    }
+
+    @Test
+    public void shouldLogExitOnCompletableFutureCompletion() {
+        CompletableFuture<String> result = testService.completable("a");
+
+        assertThat(result).isSameAs(TestService.completableFuture);
+        assertThat(appender.getEvents()).isEmpty();
+
+        TestService.completableFuture.complete("done");
+
+        assertThat(appender.getEvents()).extracting("level", "message.formattedMessage").containsExactly(
+                tuple(Level.DEBUG, "Finished completable(a), returned done"));
+    }
+
+    @Test
+    public void shouldLogExceptionOnCompletableFutureFailure() {
+        IllegalStateException failure = new IllegalStateException("failed");
+        testService.completable("a");
+
+        TestService.completableFuture.completeExceptionally(failure);
+
+        assertThat(appender.getEvents()).extracting("level", "message.formattedMessage", "thrown").containsExactly(
+                tuple(Level.ERROR, "Exception in completable(a)", failure));
+    }
+
+    @Test
+    public void shouldLogExitOnListenableFutureCompletion() {
+        testService.listenable("b");
+        assertThat(appender.getEvents()).isEmpty();
+
+        TestService.listenableFuture.set("done");
+
+        assertThat(appender.getEvents()).extracting("level", "message.formattedMessage").containsExactly(
+                tuple(Level.DEBUG, "Finished listenable(b), returned done"));
+    }
+
+    @Test
+    public void shouldLogExceptionOnListenableFutureFailure() {
+        IllegalStateException failure = new IllegalStateException("failed");
+        testService.listenable("b");
+
+        TestService.listenableFuture.setException(failure);
+
+        assertThat(appender.getEvents()).extracting("level", "message.formattedMessage", "thrown").containsExactly(
+                tuple(Level.ERROR, "Exception in listenable(b)", failure));
+    }
+
+    private static LoggerConfig getLoggerConfig() {
+        LoggerContext loggerContext = (LoggerContext) LogManager.getContext(false);
+        return loggerContext.getConfiguration().getLoggerConfig(LOGGER_NAME);
+    }
+}
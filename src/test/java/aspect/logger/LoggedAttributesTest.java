@@ -0,0 +1,212 @@
+package aspect.logger;
+
+import aspect.logger.configuration.LoggedConfigurationEndpoint;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static aspect.logger.LogLevel.DEBUG;
+import static aspect.logger.LogLevel.INFO;
+import static aspect.logger.LogLevel.OFF;
+import static aspect.logger.LogLevel.WARN;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        webEnvironment = NONE,
+        classes = LoggedAttributesTest.LoggedTestConfiguration.class
+)
+public class LoggedAttributesTest {
+
+    public static final String LOGGER_NAME = TestService.class.getName();
+
+    @Autowired
+    protected TestService testService;
+
+    @Autowired
+    protected LoggedConfigurationEndpoint loggedConfigurationEndpoint;
+
+    protected TestAppender appender;
+
+    @EnableAutoConfiguration
+    public static class LoggedTestConfiguration {
+        @Bean
+        public TestService testService() {
+            return new TestService();
+        }
+    }
+
+    @Logged(exitMessageLogLevel = INFO, exceptionMessage = "Failed $[methodName]")
+    public static class TestService {
+
+        public String classDefaults(String parameter) {
+            return "class";
+        }
+
+        @Logged(enterMessageLogLevel = OFF, exitMessageLogLevel = DEBUG, exitMessage = "Done $[methodName]")
+        public String exitOnly(String parameter) {
+            return "exit";
+        }
+
+        @Logged(enabled = false)
+        public String disabled(String parameter) {
+            return "disabled";
+        }
+
+        @Logged(exceptionMessageLogLevel = WARN)
+        public String failure(String parameter) {
+            throw new IllegalStateException();
+        }
+
+        @Logged(enterMessageLogLevel = OFF, sampleEvery = 3)
+        public int sampled(int call) {
+            return call;
+        }
+
+        @Logged(sampleEvery = 1000)
+        public int sampledFailure(int call) {
+            if (call % 2 == 1) {
+                throw new IllegalStateException();
+            }
+            return call;
+        }
+
+        public String login(String user, @Masked String password, @NotLogged Object body) {
+            return "token";
+        }
+    }
+
+    @Before
+    public void before() {
+        Configurator.setLevel(LOGGER_NAME, Level.TRACE);
+        appender = new TestAppender();
+        getLoggerConfig().addAppender(appender, Level.ALL, null);
+    }
+
+    @After
+    public void after() {
+        getLoggerConfig().removeAppender(appender.getName());
+    }
+
+    @Test
+    public void shouldApplyClassLevelAttributes() {
+        testService.classDefaults("a");
+
+        assertThat(appender.getEvents()).extracting("level", "message.formattedMessage").containsExactly(
+                tuple(Level.TRACE, "Started classDefaults(a)"),
+                tuple(Level.INFO, "Finished classDefaults(a), returned class"));
+    }
+
+    @Test
+    public void shouldLetMethodAttributesOverrideClassLevelOnes() {
+        testService.exitOnly("a");
+
+        assertThat(appender.getEvents()).extracting("level", "message.formattedMessage").containsExactly(
+                tuple(Level.DEBUG, "Done exitOnly"));
+    }
+
+    @Test
+    public void shouldNotLogDisabledMethod() {
+        testService.disabled("a");
+
+        assertThat(appender.getEvents()).isEmpty();
+    }
+
+    @Test
+    public void shouldMergeExceptionAttributes() {
+        try {
+            testService.failure("a");
+        } catch (IllegalStateException expected) {
+        }
+
+        assertThat(appender.getEvents()).extracting("level", "message.formattedMessage").containsExactly(
+                tuple(Level.TRACE, "Started failure(a)"),
+                tuple(Level.WARN, "Failed failure"));
+    }
+
+    @Test
+    public void shouldMaskAndSkipAnnotatedParameters() {
+        Object body = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("toString() of @NotLogged parameter must not be called");
+            }
+        };
+
+        testService.login("user", "secret", body);
+
+        assertThat(appender.getEvents()).extracting("message.formattedMessage").containsExactly(
+                "Started login(user,****)",
+                "Finished login(user,****), returned token");
+    }
+
+    @Test
+    public void shouldLogOneCallOutOfSampleEvery() {
+        for (int call = 0; call < 7; call++) {
+            testService.sampled(call);
+        }
+
+        assertThat(appender.getEvents()).extracting("message.formattedMessage").containsExactly(
+                "Finished sampled(0), returned 0",
+                "Finished sampled(3), returned 3",
+                "Finished sampled(6), returned 6");
+    }
+
+    @Test
+    public void shouldAlwaysLogExceptionsOfSampledMethod() {
+        for (int call = 0; call < 4; call++) {
+            try {
+                testService.sampledFailure(call);
+            } catch (IllegalStateException expected) {
+            }
+        }
+
+        assertThat(appender.getEvents()).extracting("level", "message.formattedMessage").containsExactly(
+                tuple(Level.TRACE, "Started sampledFailure(0)"),
+                tuple(Level.INFO, "Finished sampledFailure(0), returned 0"),
+                tuple(Level.ERROR, "Failed sampledFailure"),
+                tuple(Level.ERROR, "Failed sampledFailure"));
+    }
+
+    @Test
+    public void shouldApplyRuntimeOverridesUntilRemoved() {
+        String method = TestService.class.getName() + ".classDefaults";
+        loggedConfigurationEndpoint.setOverride(method, null, null, OFF, "Overridden $[methodName]", WARN,
+                null, null, null, null, null);
+        testService.classDefaults("a");
+
+        loggedConfigurationEndpoint.setOverride("aspect.logger", false, null, null, null, null,
+                null, null, null, null, null);
+        testService.classDefaults("b");
+
+        assertThat(loggedConfigurationEndpoint.overrides()).containsOnlyKeys(method, "aspect.logger");
+        loggedConfigurationEndpoint.removeOverride(method);
+        loggedConfigurationEndpoint.removeOverride("aspect.logger");
+        testService.classDefaults("c");
+
+        assertThat(appender.getEvents()).extracting("level", "message.formattedMessage").containsExactly(
+                tuple(Level.WARN, "Overridden classDefaults"),
+                tuple(Level.TRACE, "Started classDefaults(c)"),
+                tuple(Level.INFO, "Finished classDefaults(c), returned class"));
+    }
+
+    private static LoggerConfig getLoggerConfig() {
+        LoggerContext loggerContext = (LoggerContext) LogManager.getContext(false);
+        Configuration configuration = loggerContext.getConfiguration();
+        return configuration.getLoggerConfig(LOGGER_NAME);
+    }
+}
@@ -0,0 +1,244 @@
+package aspect.logger;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.AppenderRef;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+/**
+ * Calls logged beans from many threads at once and checks every expected message is logged exactly once and intact.
+ * How throughput and latency scale with the thread count is measured by LoggedConcurrencyBenchmark instead.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        webEnvironment = NONE,
+        classes = LoggedConcurrencyTest.LoggedTestConfiguration.class
+)
+public class LoggedConcurrencyTest {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+    private static final int CALLS_PER_THREAD = 5_000;
+    private static final int FAIL_EVERY = 5;
+
+    private static final String VERBOSE_LOGGER = VerboseService.class.getName();
+    private static final String QUIET_LOGGER = QuietService.class.getName();
+    private static final String STATIC_LOGGER = CustomizableLoggedInterceptor.class.getName();
+
+    @Autowired
+    private VerboseService verboseService;
+
+    @Autowired
+    private QuietService quietService;
+
+    @Autowired
+    private CustomizableLoggedInterceptor loggedInterceptor;
+
+    private final CollectingAppender appender = new CollectingAppender();
+
+    @EnableAutoConfiguration
+    public static class LoggedTestConfiguration {
+        @Bean
+        public VerboseService verboseService() {
+            return new VerboseService();
+        }
+
+        @Bean
+        public QuietService quietService() {
+            return new QuietService();
+        }
+    }
+
+    @Logged
+    public static class VerboseService {
+
+        public String echo(int thread, long sequence) {
+            return thread + ":" + sequence;
+        }
+
+        public String fail(int thread, long sequence) {
+            throw new IllegalStateException(thread + ":" + sequence);
+        }
+    }
+
+    @Logged
+    public static class QuietService extends VerboseService {
+    }
+
+    @Before
+    public void before() {
+        appender.start();
+        addLogger(VERBOSE_LOGGER, Level.TRACE);
+        addLogger(QUIET_LOGGER, Level.INFO);
+        addLogger(STATIC_LOGGER, Level.DEBUG);
+    }
+
+    @After
+    public void after() {
+        loggedInterceptor.setUseDynamicLogger(true);
+        LoggerContext loggerContext = (LoggerContext) LogManager.getContext(false);
+        Configuration configuration = loggerContext.getConfiguration();
+        for (String loggerName : new String[]{VERBOSE_LOGGER, QUIET_LOGGER, STATIC_LOGGER}) {
+            configuration.removeLogger(loggerName);
+        }
+        loggerContext.updateLoggers();
+        appender.stop();
+    }
+
+    @Test
+    public void shouldLogEveryMessageOnceWithDynamicLoggers() throws Exception {
+        runConcurrently(true);
+    }
+
+    @Test
+    public void shouldLogEveryMessageOnceWithStaticLogger() throws Exception {
+        loggedInterceptor.setUseDynamicLogger(false);
+
+        runConcurrently(false);
+    }
+
+    private void runConcurrently(boolean dynamicLogger) throws Exception {
+        for (int threads : THREAD_COUNTS) {
+            run(threads, dynamicLogger);
+        }
+    }
+
+    private void run(int threads, boolean dynamicLogger) throws Exception {
+        appender.clear();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int threadIndex = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    call(threadIndex);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+
+            assertLogged(threads, dynamicLogger);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void call(int thread) {
+        for (long sequence = 0; sequence < CALLS_PER_THREAD; sequence++) {
+            VerboseService service = sequence % 2 == 0 ? verboseService : quietService;
+            if (sequence % FAIL_EVERY == 0) {
+                try {
+                    service.fail(thread, sequence);
+                } catch (IllegalStateException expected) {
+                    //logged by the interceptor
+                }
+            } else {
+                service.echo(thread, sequence);
+            }
+        }
+    }
+
+    private void assertLogged(int threads, boolean dynamicLogger) {
+        Set<String> expected = new HashSet<>();
+        for (int thread = 0; thread < threads; thread++) {
+            for (long sequence = 0; sequence < CALLS_PER_THREAD; sequence++) {
+                boolean verbose = sequence % 2 == 0;
+                String loggerName = !dynamicLogger ? STATIC_LOGGER : verbose ? VERBOSE_LOGGER : QUIET_LOGGER;
+                //dynamic: verbose logs at TRACE, quiet at INFO; static: everything at DEBUG
+                boolean enterLogged = dynamicLogger && verbose;
+                boolean exitLogged = !dynamicLogger || verbose;
+                String arguments = thread + "," + sequence;
+                if (sequence % FAIL_EVERY == 0) {
+                    if (enterLogged) {
+                        expected.add(loggerName + " TRACE Started fail(" + arguments + ")");
+                    }
+                    expected.add(loggerName + " ERROR Exception in fail(" + arguments + ")");
+                } else {
+                    if (enterLogged) {
+                        expected.add(loggerName + " TRACE Started echo(" + arguments + ")");
+                    }
+                    if (exitLogged) {
+                        expected.add(loggerName + " DEBUG Finished echo(" + arguments + "), returned "
+                                + thread + ":" + sequence);
+                    }
+                }
+            }
+        }
+
+        List<String> logged = new ArrayList<>(appender.getMessages());
+        Set<String> distinct = new HashSet<>(logged);
+        Set<String> unexpected = new HashSet<>(distinct);
+        unexpected.removeAll(expected);
+        Set<String> missing = new HashSet<>(expected);
+        missing.removeAll(distinct);
+        assertThat(unexpected).as("corrupted or unexpected messages").isEmpty();
+        assertThat(missing).as("lost messages").isEmpty();
+        assertThat(logged).as("duplicated messages").hasSameSizeAs(distinct);
+    }
+
+    private void addLogger(String loggerName, Level level) {
+        LoggerContext loggerContext = (LoggerContext) LogManager.getContext(false);
+        Configuration configuration = loggerContext.getConfiguration();
+        LoggerConfig loggerConfig = LoggerConfig.createLogger(false, level, loggerName, "false",
+                new AppenderRef[0], null, configuration, null);
+        loggerConfig.addAppender(appender, null, null);
+        configuration.addLogger(loggerName, loggerConfig);
+        loggerContext.updateLoggers();
+    }
+
+    /**
+     * Thread safe appender keeping logger, level and message of every event.
+     */
+    private static class CollectingAppender extends AbstractAppender {
+
+        private final ConcurrentLinkedQueue<String> messages = new ConcurrentLinkedQueue<>();
+
+        CollectingAppender() {
+            super("CollectingAppender", null, null);
+        }
+
+        @Override
+        public void append(LogEvent event) {
+            messages.add(event.getLoggerName() + " " + event.getLevel() + " " + event.getMessage().getFormattedMessage());
+        }
+
+        ConcurrentLinkedQueue<String> getMessages() {
+            return messages;
+        }
+
+        void clear() {
+            messages.clear();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package aspect.logger;
+
+import org.junit.Test;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoggedPointcutTest {
+
+    private static final String EXPRESSION = "(execution(public * *(..)) && !execution(* java.lang.Object.*(..))" +
+            "&& within(@aspect.logger.Logged *))" +
+            "|| @annotation(aspect.logger.Logged)";
+
+    private static final Class<?>[] CLASSES = {
+            AnnotatedClass.class, PlainClass.class, AnnotatedChild.class, ChildOfAnnotated.class,
+            InterfaceImplementation.class, String.class, Object.class
+    };
+
+    @Test
+    public void shouldMatchLikeAspectJExpression() {
+        AspectJExpressionPointcut aspectJ = new AspectJExpressionPointcut();
+        aspectJ.setExpression(EXPRESSION);
+        LoggedPointcut pointcut = new LoggedPointcut();
+
+        for (Class<?> targetClass : CLASSES) {
+            for (Method method : ReflectionUtils.getUniqueDeclaredMethods(targetClass)) {
+                assertThat(matches(pointcut, method, targetClass))
+                        .as(targetClass.getSimpleName() + "." + method.getName())
+                        .isEqualTo(matches(aspectJ, method, targetClass));
+            }
+        }
+    }
+
+    @Test
+    public void shouldRejectClassesWithoutLogged() {
+        LoggedPointcut pointcut = new LoggedPointcut();
+
+        assertThat(pointcut.getClassFilter().matches(String.class)).isFalse();
+        assertThat(pointcut.getClassFilter().matches(InterfaceImplementation.class)).isFalse();
+        assertThat(pointcut.getClassFilter().matches(PlainClass.class)).isTrue();
+        assertThat(pointcut.getClassFilter().matches(ChildOfAnnotated.class)).isTrue();
+    }
+
+    @Test
+    public void shouldMatchSomeMethodOfEveryTestClassWithLogged() {
+        LoggedPointcut pointcut = new LoggedPointcut();
+        List<String> matched = new ArrayList<>();
+
+        for (Class<?> targetClass : CLASSES) {
+            for (Method method : ReflectionUtils.getUniqueDeclaredMethods(targetClass)) {
+                if (matches(pointcut, method, targetClass)) {
+                    matched.add(targetClass.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+
+        assertThat(matched).contains("AnnotatedClass.run", "PlainClass.annotated", "AnnotatedChild.own",
+                "ChildOfAnnotated.inherited");
+    }
+
+    private static boolean matches(Pointcut pointcut, Method method, Class<?> targetClass) {
+        return pointcut.getClassFilter().matches(targetClass) && pointcut.getMethodMatcher().matches(method, targetClass);
+    }
+
+    @Logged
+    public static class AnnotatedClass {
+        public void run() {
+        }
+
+        protected void notPublic() {
+        }
+
+        @Logged
+        protected void annotatedNotPublic() {
+        }
+
+        @Override
+        public String toString() {
+            return "annotated";
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return super.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return super.hashCode();
+        }
+    }
+
+    public static class PlainClass {
+        @Logged
+        public void annotated() {
+        }
+
+        public void notAnnotated() {
+        }
+    }
+
+    public static class Parent {
+        public void fromParent() {
+        }
+
+        public void overridden() {
+        }
+    }
+
+    @Logged
+    public static class AnnotatedChild extends Parent {
+        public void own() {
+        }
+
+        @Override
+        public void overridden() {
+        }
+    }
+
+    @Logged
+    public static class AnnotatedParent {
+        public void inherited() {
+        }
+
+        public void overriddenInChild() {
+        }
+    }
+
+    public static class ChildOfAnnotated extends AnnotatedParent {
+        @Override
+        public void overriddenInChild() {
+        }
+
+        public void own() {
+        }
+    }
+
+    public interface AnnotatedInterface {
+        @Logged
+        void call();
+    }
+
+    public static class InterfaceImplementation implements AnnotatedInterface {
+        @Override
+        public void call() {
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package aspect.logger;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit4.SpringRunner;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.NONE;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        webEnvironment = NONE,
+        classes = LoggedReactorTest.LoggedTestConfiguration.class
+)
+public class LoggedReactorTest {
+
+    public static final String LOGGER_NAME = TestService.class.getName();
+
+    @Autowired
+    protected TestService testService;
+
+    protected TestAppender appender;
+
+    @EnableAutoConfiguration
+    public static class LoggedTestConfiguration {
+        @Bean
+        public TestService testService() {
+            return new TestService();
+        }
+    }
+
+    @Logged
+    public static class TestService {
+
+        public Mono<String> mono(String parameter) {
+            return Mono.fromCallable(() -> "done");
+        }
+
+        public Mono<String> failingMono(String parameter) {
+            return Mono.error(new IllegalStateException("failed"));
+        }
+
+        public Flux<Integer> flux(int count) {
+            return Flux.range(0, count);
+        }
+
+        public Flux<Integer> infiniteFlux() {
+            return Flux.never();
+        }
+    }
+
+    @Before
+    public void before() {
+        Configurator.setLevel(LOGGER_NAME, Level.TRACE);
+        appender = new TestAppender();
+        getLoggerConfig().addAppender(appender, Level.ALL, null);
+    }
+
+    @After
+    public void after() {
+        getLoggerConfig().removeAppender(appender.getName());
+    }
+
+    @Test
+    public void shouldLogMonoOnSubscriptionAndCompletion() {
+        Mono<String> mono = testService.mono("a");
+        assertThat(appender.getEvents()).isEmpty();
+
+        assertThat(mono.block()).isEqualTo("done");
+
+        assertThat(appender.getEvents()).extracting("level", "message.formattedMessage").containsExactly(
+                tuple(Level.TRACE, "Started mono(a)"),
+                tuple(Level.DEBUG, "Finished mono(a), returned done"));
+    }
+
+    @Test
+    public void shouldLogEverySubscription() {
+        Mono<String> mono = testService.mono("a");
+
+        mono.block();
+        mono.block();
+
+        assertThat(appender.getEvents()).hasSize(4);
+    }
+
+    @Test
+    public void shouldLogMonoError() {
+        assertThatThrownBy(() -> testService.failingMono("a").block()).hasMessage("failed");
+
+        assertThat(appender.getEvents()).extracting("level", "message.formattedMessage").containsExactly(
+                tuple(Level.TRACE, "Started failingMono(a)"),
+                tuple(Level.ERROR, "Exception in failingMono(a)"));
+    }
+
+    @Test
+    public void shouldLogFluxElementCount() {
+        assertThat(testService.flux(3).collectList().block()).containsExactly(0, 1, 2);
+
+        assertThat(appender.getEvents()).extracting("level", "message.formattedMessage").containsExactly(
+                tuple(Level.TRACE, "Started flux(3)"),
+                tuple(Level.DEBUG, "Finished flux(3), returned 3 elements"));
+    }
+
+    @Test
+    public void shouldLogCancellation() {
+        Disposable subscription = testService.infiniteFlux().subscribe();
+        subscription.dispose();
+
+        assertThat(appender.getEvents()).extracting("level", "message.formattedMessage").containsExactly(
+                tuple(Level.TRACE, "Started infiniteFlux()"),
+                tuple(Level.DEBUG, "Cancelled infiniteFlux()"));
+    }
+
+    private static LoggerConfig getLoggerConfig() {
+        LoggerContext loggerContext = (LoggerContext) LogManager.getContext(false);
+        return loggerContext.getConfiguration().getLoggerConfig(LOGGER_NAME);
+    }
+}
@@ -0,0 +1,73 @@
+package aspect.logger;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StructuredTemplatesTest {
+
+    private static final Object[] ARGUMENTS = new Object[]{1, null, "say \"hi\"\n", Arrays.asList(1, 2)};
+    private static final Method DEEP_EQUALS = method(Objects.class, "deepEquals", Object.class, Object.class);
+    private static final Method RUN = method(Thread.class, "run");
+
+    @Test
+    public void shouldRenderJsonExit() {
+        LogMessageTemplate template = StructuredTemplates.compile(LogFormat.JSON, "exit", true, true, ValueRenderer.UNBOUNDED);
+
+        String message = template.render(new TraceData(String.class, DEEP_EQUALS, ARGUMENTS, null, true, 15));
+
+        assertThat(message).isEqualTo("{\"event\":\"exit\",\"class\":\"java.lang.String\",\"method\":\"deepEquals\"," +
+                "\"arguments\":[1,null,\"say \\\"hi\\\"\\n\",\"[1, 2]\"],\"returnValue\":true,\"durationMs\":15}");
+    }
+
+    @Test
+    public void shouldOmitVoidReturnValueAndApplyMasks() {
+        LogMessageTemplate template = StructuredTemplates.compile(LogFormat.JSON, "exit", true, false, ValueRenderer.UNBOUNDED);
+        Method login = method(Masking.class, "login", String.class, String.class);
+        ArgumentMask argumentMask = ArgumentMask.forMethod(login);
+
+        assertThat(template.render(new TraceData(Thread.class, RUN, new Object[0], null, null, 0)))
+                .isEqualTo("{\"event\":\"exit\",\"class\":\"java.lang.Thread\",\"method\":\"run\",\"arguments\":[]}");
+        assertThat(template.render(new TraceData(Masking.class, login, new Object[]{"user", "secret"}, argumentMask, null, 0)))
+                .isEqualTo("{\"event\":\"exit\",\"class\":\"aspect.logger.StructuredTemplatesTest$Masking\"," +
+                        "\"method\":\"login\",\"arguments\":[\"user\",\"****\"]}");
+    }
+
+    @Test
+    public void shouldRenderKeyValue() {
+        LogMessageTemplate template = StructuredTemplates.compile(LogFormat.KEY_VALUE, "enter", false, false,
+                new ValueRenderer(5, -1));
+
+        String message = template.render(new TraceData(String.class, DEEP_EQUALS, ARGUMENTS, null, null, 0));
+
+        assertThat(message).isEqualTo("event=enter class=java.lang.String method=deepEquals " +
+                "arguments=\"1,null,say \\\"...,[1, 2...\"");
+    }
+
+    @Test
+    public void shouldEscapeOnlyAppendedCharacters() {
+        StringBuilder builder = new StringBuilder("\"kept\" ");
+
+        builder.append("a\\b\t\u0001");
+        StructuredTemplates.escapeFrom(builder, 7);
+
+        assertThat(builder.toString()).isEqualTo("\"kept\" a\\\\b\\t\\u0001");
+    }
+
+    static class Masking {
+        public void login(String user, @Masked String password) {
+        }
+    }
+
+    private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package aspect.logger;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ValueRendererTest {
+
+    private static final List<Integer> LARGE_LIST = IntStream.range(0, 100_000).boxed().collect(Collectors.toList());
+
+    @Test
+    public void shouldAppendAsIsWhenUnbounded() {
+        Object value = new Object();
+
+        assertThat(render(ValueRenderer.UNBOUNDED, value)).isEqualTo(value.toString());
+        assertThat(render(ValueRenderer.UNBOUNDED, null)).isEqualTo("null");
+    }
+
+    @Test
+    public void shouldCutLongValue() {
+        ValueRenderer renderer = new ValueRenderer(5, -1);
+
+        assertThat(render(renderer, "1234567890")).isEqualTo("12345...");
+        assertThat(render(renderer, "12345")).isEqualTo("12345");
+    }
+
+    @Test
+    public void shouldLimitCollectionElements() {
+        ValueRenderer renderer = new ValueRenderer(-1, 3);
+
+        assertThat(render(renderer, LARGE_LIST)).isEqualTo("[0, 1, 2, ... (99997 more)]");
+        assertThat(render(renderer, Arrays.asList("a", "b"))).isEqualTo("[a, b]");
+        assertThat(render(renderer, new byte[]{1, 2, 3, 4})).isEqualTo("[1, 2, 3, ... (1 more)]");
+        assertThat(render(renderer, new String[]{"a", null})).isEqualTo("[a, null]");
+        assertThat(render(renderer, Collections.emptyList())).isEqualTo("[]");
+    }
+
+    @Test
+    public void shouldStopIteratingWhenValueLengthReached() {
+        ValueRenderer renderer = new ValueRenderer(10, -1);
+
+        assertThat(render(renderer, LARGE_LIST)).isEqualTo("[0, 1, 2, ...");
+    }
+
+    @Test
+    public void shouldRenderMaps() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("a", 1);
+        map.put("b", Arrays.asList(2, 3));
+
+        assertThat(render(new ValueRenderer(-1, 10), map)).isEqualTo("{a=1, b=[2, 3]}");
+    }
+
+    @Test
+    public void shouldLimitWholeMessage() throws NoSuchMethodException {
+        Method method = String.class.getMethod("valueOf", Object.class);
+        LogMessageTemplate template = LogMessageTemplate.compile(
+                "Finished $[methodName]($[arguments]), returned $[returnValue]", new ValueRenderer(-1, -1), 30);
+
+        String message = template.render(new TraceData(method, new Object[]{LARGE_LIST}, "result", 0));
+
+        assertThat(message).isEqualTo("Finished valueOf([0, 1, 2, 3, ...");
+    }
+
+    @Test
+    public void shouldRenderArraysAndOptionalsWhenUnbounded() {
+        assertThat(render(ValueRenderer.UNBOUNDED, new int[]{1, 2})).isEqualTo("[1, 2]");
+        assertThat(render(ValueRenderer.UNBOUNDED, new Object[]{"a", new long[]{3}})).isEqualTo("[a, [3]]");
+        assertThat(render(ValueRenderer.UNBOUNDED, Optional.of(Arrays.asList(1, 2)))).isEqualTo("Optional[[1, 2]]");
+        assertThat(render(ValueRenderer.UNBOUNDED, Optional.empty())).isEqualTo("Optional.empty");
+    }
+
+    @Test
+    public void shouldRenderBytesAsLengthUnlessLimited() {
+        assertThat(render(ValueRenderer.UNBOUNDED, new byte[1024])).isEqualTo("byte[1024]");
+        assertThat(render(new ValueRenderer(-1, -1), new byte[]{-1, 2})).isEqualTo("byte[2]");
+        assertThat(render(new ValueRenderer(20, -1), new byte[]{-1, 2})).isEqualTo("[-1, 2]");
+    }
+
+    @Test
+    public void shouldKeepOwnToStringOfCollections() {
+        List<String> list = new ArrayList<String>() {
+            @Override
+            public String toString() {
+                return "list of " + size();
+            }
+        };
+        list.add("a");
+
+        assertThat(render(ValueRenderer.UNBOUNDED, list)).isEqualTo("list of 1");
+        assertThat(render(new ValueRenderer(-1, 3), Collections.singletonList(list))).isEqualTo("[list of 1]");
+    }
+
+    @Test
+    public void shouldMarkSelfContainingCollections() {
+        List<Object> list = new ArrayList<>();
+        list.add("a");
+        list.add(list);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("self", map);
+        List<Object> outer = new ArrayList<>();
+        List<Object> inner = new ArrayList<>();
+        outer.add(inner);
+        inner.add(outer);
+
+        assertThat(render(ValueRenderer.UNBOUNDED, list)).isEqualTo(list.toString());
+        assertThat(render(ValueRenderer.UNBOUNDED, map)).isEqualTo(map.toString());
+        assertThat(render(new ValueRenderer(-1, 3), outer)).isEqualTo("[[(this Collection)]]");
+    }
+
+    @Test
+    public void shouldCutOptionalValue() {
+        assertThat(render(new ValueRenderer(12, -1), Optional.of("1234567890"))).isEqualTo("Optional[123...");
+    }
+
+    @Test
+    public void shouldUseFirstMatchingArgumentRenderer() {
+        ValueRenderer renderer = new ValueRenderer(-1, -1, Arrays.asList(
+                new SizeRenderer(),
+                new ArgumentRenderer<Collection>() {
+                    @Override
+                    public Class<Collection> getType() {
+                        return Collection.class;
+                    }
+
+                    @Override
+                    public void render(Collection value, StringBuilder builder) {
+                        builder.append("never used");
+                    }
+                }));
+
+        assertThat(render(renderer, LARGE_LIST)).isEqualTo("List of 100000");
+        assertThat(render(renderer, Collections.singletonMap("a", LARGE_LIST))).isEqualTo("{a=List of 100000}");
+        assertThat(render(renderer, new Object[]{Collections.emptyList()})).isEqualTo("[List of 0]");
+    }
+
+    @Test
+    public void shouldCutRenderedValue() {
+        ValueRenderer renderer = new ValueRenderer(8, -1, Collections.singletonList(new SizeRenderer()));
+
+        assertThat(render(renderer, LARGE_LIST)).isEqualTo("List of ...");
+    }
+
+    private static class SizeRenderer implements ArgumentRenderer<List> {
+        @Override
+        public Class<List> getType() {
+            return List.class;
+        }
+
+        @Override
+        public void render(List value, StringBuilder builder) {
+            builder.append("List of ").append(value.size());
+        }
+    }
+
+    private static String render(ValueRenderer renderer, Object value) {
+        StringBuilder builder = new StringBuilder();
+        renderer.append(builder, value, Integer.MAX_VALUE);
+        return builder.toString();
+    }
+}
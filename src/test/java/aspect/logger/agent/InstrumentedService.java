@@ -0,0 +1,29 @@
+package aspect.logger.agent;
+
+import aspect.logger.Logged;
+
+@Logged
+public class InstrumentedService {
+
+    public String greet(String name) {
+        return "Hello " + shout(name);
+    }
+
+    @Logged
+    private String shout(String name) {
+        return name.toUpperCase();
+    }
+
+    public static long sum(int a, long b, double c) {
+        return a + b + (long) c;
+    }
+
+    public final void fail() {
+        throw new IllegalStateException("failed");
+    }
+
+    @Override
+    public String toString() {
+        return "InstrumentedService";
+    }
+}
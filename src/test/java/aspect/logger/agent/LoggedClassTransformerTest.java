@@ -0,0 +1,190 @@
+package aspect.logger.agent;
+
+import aspect.logger.LogLevel;
+import aspect.logger.Logged;
+import aspect.logger.LoggedMethod;
+import aspect.logger.properties.LoggedInterceptorProperties;
+import org.apache.commons.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LoggedClassTransformerTest {
+
+    private final Log logger = mock(Log.class);
+
+    private AgentLoggedInterceptor interceptor;
+    private Class<?> instrumentedClass;
+
+    @Before
+    public void before() throws ClassNotFoundException {
+        when(logger.isTraceEnabled()).thenReturn(true);
+        when(logger.isDebugEnabled()).thenReturn(true);
+        when(logger.isErrorEnabled()).thenReturn(true);
+        interceptor = new AgentLoggedInterceptor(new LoggedInterceptorProperties()) {
+            @Override
+            protected LoggedMethod createLoggedMethod(Method method, Class<?> targetClass) {
+                return super.createLoggedMethod(method, targetClass).withLogger(logger);
+            }
+        };
+        LoggedAgentRuntime.setInterceptor(interceptor);
+        instrumentedClass = new InstrumentingClassLoader().loadClass(InstrumentedService.class.getName());
+    }
+
+    @After
+    public void after() throws InterruptedException {
+        interceptor.destroy();
+    }
+
+    @Test
+    public void shouldLogPublicMethodsAndSelfInvokedPrivateMethods() throws Exception {
+        Object service = instrumentedClass.newInstance();
+
+        Object greeting = instrumentedClass.getMethod("greet", String.class).invoke(service, "world");
+
+        assertThat(greeting).isEqualTo("Hello WORLD");
+        verify(logger).trace("Started greet(world)", null);
+        verify(logger).trace("Started shout(world)", null);
+        verify(logger).debug("Finished shout(world), returned WORLD", null);
+        verify(logger).debug("Finished greet(world), returned Hello WORLD", null);
+    }
+
+    @Test
+    public void shouldLogStaticMethodsWithPrimitiveArguments() throws Exception {
+        Object sum = instrumentedClass.getMethod("sum", int.class, long.class, double.class).invoke(null, 1, 2L, 3.5);
+
+        assertThat(sum).isEqualTo(6L);
+        verify(logger).debug("Finished sum(1,2,3.5), returned 6", null);
+    }
+
+    @Test
+    public void shouldLogAndRethrowExceptions() throws Exception {
+        Object service = instrumentedClass.newInstance();
+
+        try {
+            instrumentedClass.getMethod("fail").invoke(service);
+            fail("Exception expected");
+        } catch (InvocationTargetException e) {
+            assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+            verify(logger).error(eq("Exception in fail()"), any(IllegalStateException.class));
+            verify(logger, never()).debug(eq("Finished fail(), returned void"), isNull(Throwable.class));
+        }
+    }
+
+    @Test
+    public void shouldNotEnterCallsWhenNothingIsLogged() throws Exception {
+        Log disabledLogger = mock(Log.class);
+        AtomicInteger enteredCalls = new AtomicInteger();
+        interceptor.destroy();
+        interceptor = new AgentLoggedInterceptor(new LoggedInterceptorProperties()) {
+            @Override
+            protected LoggedMethod createLoggedMethod(Method method, Class<?> targetClass) {
+                return super.createLoggedMethod(method, targetClass).withLogger(disabledLogger);
+            }
+
+            @Override
+            AgentInvocation enter(Method method, Object target, Object[] arguments) {
+                enteredCalls.incrementAndGet();
+                return super.enter(method, target, arguments);
+            }
+        };
+        LoggedAgentRuntime.setInterceptor(interceptor);
+
+        Object sum = instrumentedClass.getMethod("sum", int.class, long.class, double.class).invoke(null, 1, 2L, 3.5);
+
+        assertThat(sum).isEqualTo(6L);
+        assertThat(enteredCalls.get()).isZero();
+        verify(disabledLogger, never()).debug(any(), any(Throwable.class));
+    }
+
+    @Test
+    public void shouldNotLogObjectMethods() throws Exception {
+        Object service = instrumentedClass.newInstance();
+
+        assertThat(service.toString()).isEqualTo("InstrumentedService");
+        verify(logger, never()).trace(eq("Started toString()"), isNull(Throwable.class));
+        assertThat(LoggedAgentRuntime.isInstrumented(instrumentedClass.getMethod("toString"))).isFalse();
+    }
+
+    @Test
+    public void shouldKeepSignatureAndAnnotations() throws Exception {
+        Method shout = instrumentedClass.getDeclaredMethod("shout", String.class);
+        Method fail = instrumentedClass.getMethod("fail");
+
+        assertThat(shout.isAnnotationPresent(Logged.class)).isTrue();
+        assertThat(LoggedAgentRuntime.isInstrumented(shout)).isTrue();
+        assertThat(Modifier.isFinal(fail.getModifiers())).isTrue();
+        assertThat(instrumentedClass.isAnnotationPresent(Logged.class)).isTrue();
+    }
+
+    @Test
+    public void shouldSkipClassesNotMentioningLogged() throws IOException {
+        byte[] bytes = classBytes(LoggedAgentRuntime.class.getName());
+
+        assertThat(new LoggedClassTransformer().transform(getClass().getClassLoader(),
+                "aspect/logger/agent/LoggedAgentRuntime", null, null, bytes)).isNull();
+    }
+
+    @Test
+    public void shouldParseAgentOptions() {
+        LoggedInterceptorProperties properties = LoggedAgent.parseOptions("sampleEvery=10, exitMessageLogLevel=INFO");
+
+        assertThat(properties.getSampleEvery()).isEqualTo(10);
+        assertThat(properties.getExitMessageLogLevel()).isEqualTo(LogLevel.INFO);
+    }
+
+    private static byte[] classBytes(String className) throws IOException {
+        try (InputStream stream = LoggedClassTransformerTest.class.getClassLoader()
+                .getResourceAsStream(className.replace('.', '/') + ".class")) {
+            return StreamUtils.copyToByteArray(stream);
+        }
+    }
+
+    /**
+     * Loads {@link InstrumentedService} instrumented, as the agent would, and everything else from the parent.
+     */
+    static class InstrumentingClassLoader extends ClassLoader {
+
+        InstrumentingClassLoader() {
+            super(LoggedClassTransformerTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(InstrumentedService.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> loaded = findLoadedClass(name);
+                if (loaded == null) {
+                    try {
+                        byte[] bytes = new LoggedClassTransformer().transform(this, name.replace('.', '/'),
+                                null, null, classBytes(name));
+                        loaded = defineClass(name, bytes, 0, bytes.length);
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                }
+                return loaded;
+            }
+        }
+    }
+}
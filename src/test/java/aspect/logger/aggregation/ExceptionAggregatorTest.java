@@ -0,0 +1,90 @@
+package aspect.logger.aggregation;
+
+import aspect.logger.LogLevel;
+import aspect.logger.LoggedMethod;
+import org.apache.commons.logging.Log;
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class ExceptionAggregatorTest {
+
+    private final Log logger = mock(Log.class);
+    private final LoggedMethod loggedMethod = loggedMethod("valueOf");
+
+    private final ExceptionAggregator aggregator = new ExceptionAggregator(60_000, 2);
+
+    @After
+    public void close() {
+        aggregator.close();
+    }
+
+    @Test
+    public void shouldLogFirstOccurrenceAndSummarizeRepeats() {
+        assertThat(shouldLog(loggedMethod, fail())).isTrue();
+        assertThat(shouldLog(loggedMethod, fail())).isFalse();
+        assertThat(shouldLog(loggedMethod, fail())).isFalse();
+
+        aggregator.logSummaries();
+
+        verify(logger).error(startsWith("java.lang.IllegalStateException at aspect.logger.aggregation.ExceptionAggregatorTest.fail("),
+                isNull(Throwable.class));
+        verify(logger).error(contains("repeated 2 times in java.lang.String.valueOf"), isNull(Throwable.class));
+    }
+
+    @Test
+    public void shouldKeyByExceptionTypeAndThrowSite() {
+        assertThat(shouldLog(loggedMethod, fail())).isTrue();
+        assertThat(shouldLog(loggedMethod, new IllegalStateException())).isTrue();
+        assertThat(shouldLog(loggedMethod, new IllegalArgumentException())).isTrue();
+    }
+
+    @Test
+    public void shouldLogInFullBeyondTrackedLimit() {
+        LoggedMethod other = loggedMethod("copyValueOf");
+        shouldLog(loggedMethod, fail());
+        shouldLog(other, fail());
+
+        assertThat(shouldLog(loggedMethod("format"), fail())).isTrue();
+        assertThat(shouldLog(loggedMethod("format"), fail())).isTrue();
+        assertThat(aggregator.getTrackedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldNotLogSummaryWithoutRepeats() {
+        shouldLog(loggedMethod, fail());
+
+        aggregator.logSummaries();
+
+        verify(logger, never()).error(anyString(), isNull(Throwable.class));
+    }
+
+    private boolean shouldLog(LoggedMethod loggedMethod, Throwable throwable) {
+        return aggregator.shouldLog(loggedMethod, loggedMethod.getExceptionLogHandle(), throwable);
+    }
+
+    private static IllegalStateException fail() {
+        return new IllegalStateException("same place every time");
+    }
+
+    private LoggedMethod loggedMethod(String name) {
+        Method method = null;
+        for (Method candidate : String.class.getMethods()) {
+            if (candidate.getName().equals(name)) {
+                method = candidate;
+            }
+        }
+        return new LoggedMethod(method, String.class, logger, true, null, null, null, -1, null,
+                null, LogLevel.TRACE, null, LogLevel.DEBUG, null, LogLevel.ERROR);
+    }
+}
@@ -0,0 +1,119 @@
+package aspect.logger.aggregation;
+
+import aspect.logger.LogLevel;
+import aspect.logger.backend.CommonsLogHandle;
+import org.apache.commons.logging.Log;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MethodSummaryReporterTest {
+
+    private final Log logger = mock(Log.class);
+
+    private final MethodSummaryReporter reporter = new MethodSummaryReporter(60_000);
+
+    @After
+    public void close() {
+        reporter.close();
+    }
+
+    @Test
+    public void shouldLogOneLinePerMethodAndInterval() throws NoSuchMethodException {
+        when(logger.isInfoEnabled()).thenReturn(true);
+        MethodSummary summary = summary("valueOf");
+        for (int i = 1; i <= 100; i++) {
+            summary.record(TimeUnit.MILLISECONDS.toNanos(i), i % 10 == 0);
+        }
+
+        reporter.logSummaries();
+
+        verify(logger).info("Summary of java.lang.String.valueOf(char[]) in last 60000 ms: calls=100, errors=10, "
+                + "min=0.992 ms, mean=50.500 ms, p50=51.200 ms, p90=86.016 ms, p99=100.000 ms, max=100.000 ms", null);
+    }
+
+    @Test
+    public void shouldStartEachIntervalEmpty() throws NoSuchMethodException {
+        when(logger.isInfoEnabled()).thenReturn(true);
+        summary("valueOf").record(1000, false);
+
+        reporter.logSummaries();
+        reporter.logSummaries();
+        summary("copyValueOf");
+        reporter.logSummaries();
+
+        verify(logger).info(anyObject(), isNull(Throwable.class));
+    }
+
+    @Test
+    public void shouldShareSummaryOfSameMethod() throws NoSuchMethodException {
+        assertThat(summary("valueOf")).isSameAs(summary("valueOf"));
+        assertThat(summary("valueOf")).isNotSameAs(summary("copyValueOf"));
+    }
+
+    @Test
+    public void shouldKeepOverloadsApart() throws NoSuchMethodException {
+        MethodSummary summary = summary("valueOf");
+
+        assertThat(reporter.summaryFor(String.class, String.class.getMethod("valueOf", int.class),
+                new CommonsLogHandle(logger, LogLevel.INFO))).isNotSameAs(summary);
+    }
+
+    @Test
+    public void shouldNotLoseCallsRecordedWhileIntervalEnds() throws Exception {
+        MethodSummary summary = summary("valueOf");
+        int threads = 4;
+        int callsPerThread = 200_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> recorders = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                recorders.add(executor.submit(() -> {
+                    for (int i = 0; i < callsPerThread; i++) {
+                        summary.record(1000, false);
+                    }
+                }));
+            }
+            long counted = 0;
+            while (!recorders.stream().allMatch(Future::isDone)) {
+                counted += summary.reset().getCount();
+            }
+            for (Future<?> recorder : recorders) {
+                recorder.get();
+            }
+            counted += summary.reset().getCount();
+
+            assertThat(counted).isEqualTo((long) threads * callsPerThread);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotLogWhenLevelDisabled() throws NoSuchMethodException {
+        summary("valueOf").record(1000, false);
+
+        reporter.logSummaries();
+
+        verify(logger, never()).info(anyObject(), isNull(Throwable.class));
+    }
+
+    private MethodSummary summary(String methodName) throws NoSuchMethodException {
+        return reporter.summaryFor(String.class, String.class.getMethod(methodName, char[].class),
+                new CommonsLogHandle(logger, LogLevel.INFO));
+    }
+}
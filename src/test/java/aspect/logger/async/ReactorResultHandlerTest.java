@@ -0,0 +1,66 @@
+package aspect.logger.async;
+
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class ReactorResultHandlerTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldLogCompletionOrCancellationExactlyOnceWhenRacing() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 2_000; i++) {
+                AtomicInteger outcomes = new AtomicInteger();
+                AsyncResultListener listener = new AsyncResultListener() {
+                    @Override
+                    public void onSuccess(Object value) {
+                        outcomes.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        outcomes.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onCancel() {
+                        outcomes.incrementAndGet();
+                    }
+                };
+                ReactorResultHandler.LoggingSubscriber<Object> subscriber = new ReactorResultHandler.LoggingSubscriber<>(
+                        mock(CoreSubscriber.class), listener, false);
+                subscriber.onSubscribe(mock(Subscription.class));
+                CyclicBarrier barrier = new CyclicBarrier(2);
+
+                Future<?> complete = executor.submit(() -> {
+                    barrier.await();
+                    subscriber.onComplete();
+                    return null;
+                });
+                Future<?> cancel = executor.submit(() -> {
+                    barrier.await();
+                    subscriber.cancel();
+                    return null;
+                });
+                complete.get(10, TimeUnit.SECONDS);
+                cancel.get(10, TimeUnit.SECONDS);
+
+                assertThat(outcomes.get()).isEqualTo(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package aspect.logger.backend;
+
+import aspect.logger.LogLevel;
+import aspect.logger.LogMessageTemplate;
+import aspect.logger.TraceData;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LogBackendTypeTest {
+
+    @Test
+    public void shouldPickLog4j2WhenPresent() {
+        assertThat(LogBackendType.AUTO.create()).isInstanceOf(Log4j2LogBackend.class);
+        assertThat(LogBackendType.SLF4J.create()).isInstanceOf(Slf4jLogBackend.class);
+        assertThat(LogBackendType.COMMONS_LOGGING.create()).isInstanceOf(CommonsLogBackend.class);
+    }
+
+    @Test
+    public void shouldNeverLogThroughOffHandle() {
+        LogHandle handle = new Log4j2LogBackend().handle(getClass().getName(), LogLevel.OFF);
+
+        assertThat(handle.isEnabled()).isFalse();
+        assertThat(handle.getLogLevel()).isEqualTo(LogLevel.OFF);
+    }
+
+    @Test
+    public void shouldRenderTemplateIntoLog4j2Event() throws NoSuchMethodException {
+        LoggerConfig loggerConfig = ((LoggerContext) LogManager.getContext(false)).getConfiguration().getRootLogger();
+        List<String> messages = new ArrayList<>();
+        AbstractAppender appender = new AbstractAppender("LogBackendTypeTest", null, null) {
+            @Override
+            public void append(LogEvent event) {
+                messages.add(event.getMessage().getFormattedMessage());
+            }
+        };
+        loggerConfig.addAppender(appender, Level.ALL, null);
+        try {
+            LogHandle handle = new Log4j2LogBackend().handle(getClass().getName(), LogLevel.ERROR);
+            TraceData data = new TraceData(String.class, String.class.getMethod("valueOf", int.class),
+                    new Object[]{1}, null, "1", 0);
+
+            handle.log(LogMessageTemplate.compile("$[methodName]($[arguments]) = $[returnValue]"), data, null);
+            handle.log("plain", null);
+        } finally {
+            loggerConfig.removeAppender(appender.getName());
+        }
+
+        assertThat(messages).containsExactly("valueOf(1) = 1", "plain");
+    }
+}
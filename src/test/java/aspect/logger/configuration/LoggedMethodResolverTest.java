@@ -0,0 +1,57 @@
+package aspect.logger.configuration;
+
+import aspect.logger.Logged;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoggedMethodResolverTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(LoggedAutoConfiguration.class));
+
+    @Test
+    public void shouldStartWithValidLoggedBean() {
+        contextRunner.withUserConfiguration(ValidService.class)
+                .run(context -> assertThat(context).hasNotFailed());
+    }
+
+    @Test
+    public void shouldFailStartupOnSeveralSamplingValues() {
+        contextRunner.withUserConfiguration(SeveralSamplingValuesService.class)
+                .run(context -> assertThat(context).getFailure()
+                        .hasRootCauseInstanceOf(IllegalArgumentException.class)
+                        .hasStackTraceContaining("Only one sampling value may be specified"));
+    }
+
+    @Test
+    public void shouldFailStartupOnInvalidMessage() {
+        contextRunner.withUserConfiguration(InvalidMessageService.class)
+                .run(context -> assertThat(context).getFailure()
+                        .hasRootCauseInstanceOf(IllegalArgumentException.class)
+                        .hasStackTraceContaining("enterMessage cannot contain placeholder $[returnValue]"));
+    }
+
+    @Logged
+    public static class ValidService {
+        public String call() {
+            return "valid";
+        }
+    }
+
+    public static class SeveralSamplingValuesService {
+        @Logged(sampleEvery = {1, 2})
+        public String call() {
+            return "sampled";
+        }
+    }
+
+    @Logged(enterMessage = "Started $[methodName], returned $[returnValue]")
+    public static class InvalidMessageService {
+        public String call() {
+            return "invalid";
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package aspect.logger.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldMapEveryValueToBucketContainingIt() {
+        for (long value = 0; value < 100_000; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertThat(LatencyHistogram.bucketIndex(LatencyHistogram.bucketMidpoint(index))).isEqualTo(index);
+            assertThat((double) LatencyHistogram.bucketMidpoint(index)).isCloseTo(value, within(value * 0.125 + 1));
+        }
+    }
+
+    @Test
+    public void shouldComputePercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis), millis % 100 == 0);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getErrorCount()).isEqualTo(10);
+        assertThat(histogram.getMax(TimeUnit.MILLISECONDS)).isEqualTo(1000);
+        assertThat(histogram.getTotalTime(TimeUnit.MILLISECONDS)).isEqualTo(500_500);
+        assertThat(histogram.getPercentile(0.5, TimeUnit.MILLISECONDS)).isCloseTo(500, within(500 * 0.125));
+        assertThat(histogram.getPercentile(0.99, TimeUnit.MILLISECONDS)).isCloseTo(990, within(990 * 0.125));
+        assertThat(histogram.getPercentile(0.999, TimeUnit.MILLISECONDS)).isCloseTo(999, within(999 * 0.125));
+    }
+
+    @Test
+    public void shouldReturnZeroWhenEmpty() {
+        assertThat(new LatencyHistogram("test").getPercentile(0.99, TimeUnit.MILLISECONDS)).isZero();
+    }
+
+    @Test
+    public void shouldForgetCallsOlderThanTwoWindows() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram("test", 50);
+        histogram.record(TimeUnit.SECONDS.toNanos(1), false);
+
+        Thread.sleep(150);
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(2), false);
+
+        assertThat(histogram.getPercentile(0.99, TimeUnit.MILLISECONDS)).isCloseTo(2, within(2 * 0.125));
+        assertThat(histogram.getCount()).isEqualTo(2);
+        assertThat(histogram.getMax(TimeUnit.MILLISECONDS)).isEqualTo(1000);
+    }
+
+    @Test
+    public void shouldKeepOverloadsApart() throws NoSuchMethodException {
+        MethodLatencyRegistry latencyRegistry = new MethodLatencyRegistry();
+
+        LatencyHistogram byChar = latencyRegistry.histogramFor(String.class, String.class.getMethod("indexOf", int.class));
+        LatencyHistogram byString = latencyRegistry.histogramFor(String.class, String.class.getMethod("indexOf", String.class));
+
+        assertThat(byChar).isNotSameAs(byString);
+        assertThat(byChar.getName()).isEqualTo("java.lang.String.indexOf(int)");
+        assertThat(byString.getName()).isEqualTo("java.lang.String.indexOf(java.lang.String)");
+    }
+
+    @Test
+    public void shouldExportHistogramsCreatedBeforeAndAfterBinding() throws NoSuchMethodException {
+        MethodLatencyRegistry latencyRegistry = new MethodLatencyRegistry();
+        latencyRegistry.histogramFor(String.class, String.class.getMethod("length"))
+                .record(TimeUnit.MILLISECONDS.toNanos(5), false);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        new LatencyMeterBinder(latencyRegistry).bindTo(meterRegistry);
+        latencyRegistry.histogramFor(String.class, String.class.getMethod("isEmpty"))
+                .record(TimeUnit.MILLISECONDS.toNanos(7), true);
+
+        assertThat(meterRegistry.get("logged.method").tag("method", "java.lang.String.length()").functionTimer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("logged.method.errors").tag("method", "java.lang.String.isEmpty()").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("logged.method.percentile").tag("method", "java.lang.String.isEmpty()")
+                .tag("percentile", "0.99").gauge().value()).isCloseTo(0.007, within(0.001));
+    }
+}
@@ -0,0 +1,98 @@
+package aspect.logger.pipeline;
+
+import aspect.logger.LogLevel;
+import aspect.logger.LogMessageTemplate;
+import aspect.logger.LoggedMethod;
+import aspect.logger.backend.CommonsLogHandle;
+import aspect.logger.backend.LogHandle;
+import org.apache.commons.logging.Log;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class AsyncLogPipelineTest {
+
+    private static final LogMessageTemplate TEMPLATE = LogMessageTemplate.compile("$[methodName]($[arguments]) = $[returnValue]");
+
+    private final Log logger = mock(Log.class);
+    private final LogHandle logHandle = new CommonsLogHandle(logger, LogLevel.DEBUG);
+    private final LoggedMethod loggedMethod = loggedMethod();
+
+    @Test
+    public void shouldLogPublishedMessagesInOrderOnClose() throws InterruptedException {
+        AsyncLogPipeline pipeline = new AsyncLogPipeline(4, OverflowPolicy.BLOCK);
+        RuntimeException exception = new RuntimeException();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(publish(pipeline, i, null)).isTrue();
+        }
+        publish(pipeline, 10, exception);
+        pipeline.close();
+
+        InOrder inOrder = inOrder(logger);
+        for (int i = 0; i < 10; i++) {
+            inOrder.verify(logger).debug("valueOf(" + i + ") = " + i, null);
+        }
+        inOrder.verify(logger).debug("valueOf(10) = 10", exception);
+        assertThat(pipeline.getDroppedCount()).isZero();
+        assertThat(pipeline.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void shouldDropAndCountMessagesWhenFull() throws InterruptedException {
+        AsyncLogPipeline pipeline = new AsyncLogPipeline(2, OverflowPolicy.DROP);
+        CountDownLatch consumerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            consumerBlocked.countDown();
+            release.await();
+            return null;
+        }).when(logger).debug("valueOf(0) = 0", null);
+
+        publish(pipeline, 0, null);
+        assertThat(consumerBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(publish(pipeline, 1, null)).isTrue();
+        assertThat(publish(pipeline, 2, null)).isTrue();
+        assertThat(publish(pipeline, 3, null)).isFalse();
+        assertThat(publish(pipeline, 4, null)).isFalse();
+        release.countDown();
+        pipeline.close();
+
+        verify(logger, times(3)).debug(anyString(), any(Throwable.class));
+        assertThat(pipeline.getDroppedCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRoundCapacityUpToPowerOfTwo() throws InterruptedException {
+        AsyncLogPipeline pipeline = new AsyncLogPipeline(1000, OverflowPolicy.DROP);
+        pipeline.close();
+
+        assertThat(pipeline.getCapacity()).isEqualTo(1024);
+    }
+
+    private boolean publish(AsyncLogPipeline pipeline, int value, Throwable throwable) {
+        return pipeline.publish(logHandle, TEMPLATE, loggedMethod, new Object[]{value}, value, 0, throwable);
+    }
+
+    private LoggedMethod loggedMethod() {
+        try {
+            Method method = String.class.getMethod("valueOf", int.class);
+            return new LoggedMethod(method, String.class, logger, true, null, null, null, -1, null,
+                    TEMPLATE, LogLevel.TRACE, TEMPLATE, LogLevel.DEBUG, TEMPLATE, LogLevel.ERROR);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
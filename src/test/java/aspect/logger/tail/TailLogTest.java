@@ -0,0 +1,99 @@
+package aspect.logger.tail;
+
+import aspect.logger.CustomizableLoggedInterceptor;
+import aspect.logger.LoggedMethod;
+import aspect.logger.properties.LoggedInterceptorProperties;
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.logging.Log;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.lang.reflect.Method;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TailLogTest {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Log logger = mock(Log.class);
+    private final MethodInvocation outer = mock(MethodInvocation.class);
+    private final MethodInvocation inner = mock(MethodInvocation.class);
+
+    private CustomizableLoggedInterceptor interceptor;
+
+    @Before
+    public void before() throws Throwable {
+        when(logger.isErrorEnabled()).thenReturn(true);
+        when(outer.getMethod()).thenReturn(Objects.class.getMethod("equals", Object.class, Object.class));
+        when(outer.getArguments()).thenReturn(new Object[]{1, 2});
+        when(inner.getMethod()).thenReturn(Objects.class.getMethod("hashCode", Object.class));
+        when(inner.getArguments()).thenReturn(new Object[]{1});
+        when(outer.proceed()).thenAnswer(invocation -> interceptor.invoke(inner));
+
+        LoggedInterceptorProperties properties = new LoggedInterceptorProperties();
+        properties.setTailBufferSize(3);
+        interceptor = new CustomizableLoggedInterceptor(properties) {
+            @Override
+            protected LoggedMethod createLoggedMethod(Method method, Class<?> targetClass) {
+                return super.createLoggedMethod(method, targetClass).withLogger(logger);
+            }
+        };
+    }
+
+    @Test
+    public void shouldDropMessagesOfSuccessfulCalls() throws Throwable {
+        when(inner.proceed()).thenReturn(7);
+
+        interceptor.invoke(outer);
+
+        verify(logger, never()).trace(any(), any(Throwable.class));
+        verify(logger, never()).debug(any(), any(Throwable.class));
+        verify(logger, never()).error(any(), any(Throwable.class));
+    }
+
+    @Test
+    public void shouldLogMessagesAsOneBlockWhenCallFails() throws Throwable {
+        IllegalStateException exception = new IllegalStateException("failed");
+        when(inner.proceed()).thenThrow(exception);
+
+        invokeFailing();
+
+        ArgumentCaptor<Object> message = ArgumentCaptor.forClass(Object.class);
+        verify(logger).error(message.capture(), any(IllegalStateException.class));
+        verify(logger).error(any(), any(Throwable.class));
+        assertThat(message.getValue()).isEqualTo("Logged calls up to the exception:" + LINE_SEPARATOR
+                + "... 1 earlier messages dropped" + LINE_SEPARATOR
+                + "TRACE Started hashCode(1)" + LINE_SEPARATOR
+                + "ERROR Exception in hashCode(1)" + LINE_SEPARATOR
+                + "ERROR Exception in equals(1,2)");
+    }
+
+    @Test
+    public void shouldStartOverAfterOutermostCall() throws Throwable {
+        when(inner.proceed()).thenReturn(7).thenThrow(new IllegalStateException("failed"));
+
+        interceptor.invoke(outer);
+        invokeFailing();
+
+        verify(logger, times(1)).error(any(), any(IllegalStateException.class));
+    }
+
+    private void invokeFailing() throws Throwable {
+        try {
+            interceptor.invoke(outer);
+            fail("Exception expected");
+        } catch (IllegalStateException expected) {
+            //logged in the block
+        }
+    }
+}